@@ -0,0 +1,102 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.Bucket;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bucket metadata remembered for a while, so that reading it (and checking uploads against
+ * it) doesn't need a request every time. The list of all buckets is cached separately from
+ * the single buckets, but fills them in too. Buckets that couldn't be read (e.g. because the
+ * key isn't allowed to) are remembered too, so that uploads to them don't ask again.
+ */
+class BucketCache {
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Expiring<Bucket>> buckets = new ConcurrentHashMap<>();
+    private volatile Expiring<List<Bucket>> all;
+    private final ConcurrentHashMap<String, Long> unreadableUntilNanos = new ConcurrentHashMap<>();
+
+    BucketCache(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * @return the bucket, or null if it isn't cached or has expired
+     */
+    Bucket get(String id) {
+        final Expiring<Bucket> cached = buckets.get(id);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.hasExpired()) {
+            buckets.remove(id, cached);
+            return null;
+        }
+        return cached.value();
+    }
+
+    /**
+     * @return all buckets, or null if they aren't cached or have expired
+     */
+    List<Bucket> getAll() {
+        final Expiring<List<Bucket>> cached = all;
+        return cached == null || cached.hasExpired() ? null : cached.value();
+    }
+
+    void put(String id, Bucket bucket) {
+        buckets.put(id, new Expiring<>(bucket, System.nanoTime() + ttlNanos));
+        unreadableUntilNanos.remove(id);
+    }
+
+    /**
+     * Remembers that the server refused to return the bucket.
+     */
+    void putUnreadable(String id) {
+        unreadableUntilNanos.put(id, System.nanoTime() + ttlNanos);
+    }
+
+    /**
+     * @return whether the server refused to return the bucket, and that hasn't expired yet
+     */
+    boolean isUnreadable(String id) {
+        final Long until = unreadableUntilNanos.get(id);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until >= 0) {
+            unreadableUntilNanos.remove(id, until);
+            return false;
+        }
+        return true;
+    }
+
+    void putAll(List<Bucket> allBuckets) {
+        final long expiresAt = System.nanoTime() + ttlNanos;
+        all = new Expiring<>(List.copyOf(allBuckets), expiresAt);
+        for (Bucket bucket : allBuckets) {
+            if (bucket.id() != null) {
+                buckets.put(bucket.id(), new Expiring<>(bucket, expiresAt));
+            }
+        }
+    }
+
+    /**
+     * Forgets the bucket and the list of all buckets, because the bucket is being created,
+     * changed or deleted.
+     */
+    void invalidate(String id) {
+        if (id != null) {
+            buckets.remove(id);
+            unreadableUntilNanos.remove(id);
+        }
+        all = null;
+    }
+
+    private record Expiring<T>(T value, long expiresAtNanos) {
+        boolean hasExpired() {
+            return System.nanoTime() - expiresAtNanos >= 0;
+        }
+    }
+}
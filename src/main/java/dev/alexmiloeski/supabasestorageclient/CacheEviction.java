@@ -0,0 +1,41 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.DownloadCachePolicy;
+
+import java.util.List;
+
+/**
+ * Decides which keys a size-bounded cache keeps. Implementations only track keys and their
+ * weights; the cache holds the values. They aren't thread-safe; the cache calls them under
+ * its lock.
+ */
+interface CacheEviction {
+
+    static CacheEviction of(DownloadCachePolicy policy) {
+        return switch (policy.eviction()) {
+            case LRU -> new LruEviction(policy.maxBytes());
+            case W_TINY_LFU -> new TinyLfuEviction(policy.maxBytes());
+        };
+    }
+
+    /**
+     * Records a read of a cached key.
+     */
+    void onHit(String key);
+
+    /**
+     * Records a read of a key that isn't cached.
+     */
+    void onMiss(String key);
+
+    /**
+     * Adds a key (which isn't tracked yet) with the given weight.
+     * @return the keys to evict to stay within the bound, possibly including the added one
+     */
+    List<String> add(String key, long weight);
+
+    /**
+     * Stops tracking a key, if it's tracked.
+     */
+    void remove(String key);
+}
@@ -0,0 +1,95 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.CircuitBreakerPolicy;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Counts failures in a row and, past the threshold, rejects requests until a background health
+ * check succeeds, as described in {@link CircuitBreakerPolicy}.
+ */
+class CircuitBreaker {
+    private final CircuitBreakerPolicy policy;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean open = new AtomicBoolean();
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    CircuitBreaker(CircuitBreakerPolicy policy) {
+        this.policy = policy;
+    }
+
+    static boolean isFailure(int statusCode) {
+        return statusCode >= 500;
+    }
+
+    /**
+     * I/O errors, which include timeouts; anything else, like a closed client, isn't the server's fault.
+     */
+    static boolean isFailure(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException;
+    }
+
+    boolean isOpen() {
+        return open.get();
+    }
+
+    void onSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    /**
+     * Counts a failure, and opens the circuit if it's one too many. The first caller to open it
+     * starts checking the health in the background.
+     * @param probe a health check that completes with true once the server is healthy
+     * @param stopped tells when to stop checking even though the circuit is still open,
+     *                e.g. because the client has been closed
+     */
+    void onFailure(Supplier<CompletableFuture<Boolean>> probe, BooleanSupplier stopped) {
+        if (consecutiveFailures.incrementAndGet() >= policy.failureThreshold()
+                && open.compareAndSet(false, true)
+                && probing.compareAndSet(false, true)) {
+            scheduleProbe(probe, stopped);
+        }
+    }
+
+    /**
+     * Closes the circuit, e.g. because a health check succeeded.
+     */
+    void close() {
+        consecutiveFailures.set(0);
+        open.set(false);
+    }
+
+    private void scheduleProbe(Supplier<CompletableFuture<Boolean>> probe, BooleanSupplier stopped) {
+        CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(
+                        policy.probeInterval().toNanos(), TimeUnit.NANOSECONDS))
+                .thenCompose(ignore -> open.get() && !stopped.getAsBoolean()
+                        ? probe.get()
+                        : CompletableFuture.completedFuture(false))
+                .whenComplete((healthy, throwable) -> {
+                    if (Boolean.TRUE.equals(healthy)) {
+                        close();
+                    }
+                    if (!open.get() || stopped.getAsBoolean()) {
+                        probing.set(false);
+                        // it may have opened again in between, with nobody left to probe
+                        if (open.get() && !stopped.getAsBoolean() && probing.compareAndSet(false, true)) {
+                            scheduleProbe(probe, stopped);
+                        }
+                    } else {
+                        scheduleProbe(probe, stopped);
+                    }
+                });
+    }
+}
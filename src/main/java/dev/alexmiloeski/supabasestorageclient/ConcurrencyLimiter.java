@@ -0,0 +1,209 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.AdaptiveConcurrency;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An AIMD limit on the number of requests in flight, as described in {@link AdaptiveConcurrency}.
+ * Callers take a slot with {@link #acquire()} right before sending and give it back once the
+ * response headers arrive (or the request fails), reporting how it went. Releasing on the
+ * headers keeps the latency samples independent of the body size, so a large download doesn't
+ * look like congestion.
+ */
+class ConcurrencyLimiter {
+    enum Sample {
+        /** A response; its latency is taken into account. */
+        SUCCESS,
+        /** A sign of overload: 429, 503, a timeout or a connection failure. */
+        DROPPED,
+        /** The request says nothing about the server's load, e.g. the client was closed. */
+        IGNORED
+    }
+
+    private final AdaptiveConcurrency config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long baselineNanos = Long.MAX_VALUE;
+    // samples of requests that started before the last decrease don't cause another one
+    private boolean decreased;
+    private long lastDecreaseNanos;
+
+    ConcurrencyLimiter(AdaptiveConcurrency config) {
+        this.config = config;
+        this.limit = config.initialLimit();
+    }
+
+    /**
+     * @return a future that completes once a slot is taken; already completed if one was free
+     */
+    CompletableFuture<Void> acquire() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a slot, for at most the given time. If interrupted or out of time, the caller
+     * doesn't hold a slot.
+     * @param timeoutNanos how long to wait; {@link Long#MAX_VALUE} for as long as it takes
+     * @return whether a slot was taken
+     */
+    boolean acquireBlocking(long timeoutNanos) throws InterruptedException {
+        final CompletableFuture<Void> waiter = acquire();
+        try {
+            waiter.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            // unless the slot was granted in the meantime
+            return !waiter.cancel(false);
+        } catch (InterruptedException e) {
+            if (!waiter.cancel(false)) {
+                // the slot was granted in the meantime
+                release(0, Sample.IGNORED);
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Gives back a slot and adjusts the limit.
+     * @param startNanos the {@link System#nanoTime()} when the request was sent
+     */
+    void release(long startNanos, Sample sample) {
+        final long now = System.nanoTime();
+        lock.lock();
+        try {
+            final boolean fullyUsed = inFlight * 2 >= limit;
+            inFlight--;
+            if (sample == Sample.SUCCESS) {
+                final long latency = now - startNanos;
+                if (latency < baselineNanos) {
+                    baselineNanos = latency;
+                } else {
+                    // drift up slowly, so the baseline follows a lasting change (e.g. a new route)
+                    baselineNanos += (latency - baselineNanos) / 100;
+                }
+                if (latency > baselineNanos * config.latencyTolerance()) {
+                    decrease(startNanos, now);
+                } else if (fullyUsed) {
+                    limit = Math.min(config.maxLimit(), limit + 1 / limit);
+                }
+            } else if (sample == Sample.DROPPED) {
+                decrease(startNanos, now);
+            }
+        } finally {
+            lock.unlock();
+        }
+        grantWaiters();
+    }
+
+    static Sample sampleOf(int statusCode) {
+        return statusCode == 429 || statusCode == 503 ? Sample.DROPPED : Sample.SUCCESS;
+    }
+
+    static Sample sampleOf(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        // timeouts and connection failures; anything else is on our side
+        return cause instanceof IOException ? Sample.DROPPED : Sample.IGNORED;
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A slot taken for one request. Only its first release counts.
+     */
+    final class Slot {
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release(Sample sample) {
+            if (released.compareAndSet(false, true)) {
+                ConcurrencyLimiter.this.release(startNanos, sample);
+            }
+        }
+
+        /**
+         * Wraps the handler so that the slot is released as soon as the response headers arrive.
+         */
+        <T> HttpResponse.BodyHandler<T> releasingOnHeaders(HttpResponse.BodyHandler<T> bodyHandler) {
+            return responseInfo -> {
+                release(sampleOf(responseInfo.statusCode()));
+                return bodyHandler.apply(responseInfo);
+            };
+        }
+    }
+
+    private void decrease(long startNanos, long now) {
+        if (decreased && startNanos - lastDecreaseNanos < 0) {
+            return;
+        }
+        limit = Math.max(config.minLimit(), limit * config.backoffRatio());
+        decreased = true;
+        lastDecreaseNanos = now;
+    }
+
+    private void grantWaiters() {
+        final List<CompletableFuture<Void>> granted = new ArrayList<>();
+        lock.lock();
+        try {
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                granted.add(waiters.poll());
+                inFlight++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // completed outside the lock, since completing runs the waiters' continuations
+        for (CompletableFuture<Void> waiter : granted) {
+            if (!waiter.complete(null)) {
+                // cancelled by an interrupted caller
+                release(0, Sample.IGNORED);
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.DiskCachePolicy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The disk tier of the download cache, see {@link DiskCachePolicy}. File contents live in
+ * {@code objects/}, named by the SHA-256 of their ETag; the index in {@code index} maps every
+ * bucket/path to an ETag, size and last access time. The index is kept in memory and saved
+ * by the sweeper (when it has changed) and on close, so a crash loses at most the changes
+ * since the last sweep; contents that lost their index entry are deleted at the next sweep.
+ * <br>It's a best-effort cache: I/O errors drop the affected entry rather than fail a download.
+ */
+class DiskCache implements AutoCloseable {
+    private static final int INDEX_MAGIC = 0x53534443;
+    private static final int INDEX_VERSION = 1;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path objects;
+    private final Path indexFile;
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Entry> index = new HashMap<>();
+    // the contents being written, which the sweeper mustn't delete as unreferenced
+    private final Set<String> pending = new HashSet<>();
+    private final ScheduledExecutorService sweeper;
+    private boolean dirty;
+
+    /**
+     * @throws UncheckedIOException if the directory can't be created
+     */
+    DiskCache(DiskCachePolicy policy) {
+        this.objects = policy.directory().resolve("objects");
+        this.indexFile = policy.directory().resolve("index");
+        this.maxBytes = policy.maxBytes();
+        try {
+            Files.createDirectories(objects);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the cache directory " + objects, e);
+        }
+        loadIndex();
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "supabase-storage-cache-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = policy.sweepInterval().toMillis();
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the ETag of the cached file, or null if it isn't cached
+     */
+    String eTagOf(String key) {
+        lock.lock();
+        try {
+            final Entry entry = index.get(key);
+            return entry == null ? null : entry.eTag;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the cached file into memory. Hits are promoted to the in-memory tier as they are,
+     * so the contents end up on the heap either way and a mapping would only add one.
+     * @return the contents, or null if they aren't cached under that ETag (anymore)
+     */
+    byte[] read(String key, String eTag) {
+        lock.lock();
+        try {
+            final Entry entry = index.get(key);
+            if (entry == null || !entry.eTag.equals(eTag)) {
+                return null;
+            }
+            entry.lastAccess = System.currentTimeMillis();
+            dirty = true;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return Files.readAllBytes(contentPath(eTag));
+        } catch (IOException e) {
+            invalidate(key);
+            return null;
+        }
+    }
+
+    void store(String key, String eTag, byte[] contents) {
+        final String name = contentName(eTag);
+        lock.lock();
+        try {
+            pending.add(name);
+        } finally {
+            lock.unlock();
+        }
+        boolean stored = false;
+        try {
+            final Path path = objects.resolve(name);
+            if (!Files.exists(path) || Files.size(path) != contents.length) {
+                final Path temp = Files.createTempFile(objects, name, TEMP_SUFFIX);
+                try {
+                    Files.write(temp, contents);
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            stored = true;
+        } catch (IOException e) {
+            // not cached then
+        } finally {
+            lock.lock();
+            try {
+                pending.remove(name);
+                if (stored) {
+                    index.put(key, new Entry(eTag, contents.length, System.currentTimeMillis()));
+                } else {
+                    index.remove(key);
+                }
+                dirty = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    void invalidate(String key) {
+        lock.lock();
+        try {
+            if (index.remove(key) != null) {
+                dirty = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the contents fit in the bound, deletes the
+     * contents no entry refers to anymore and saves the index if it has changed.
+     */
+    void sweep() {
+        final Set<String> referenced = new HashSet<>();
+        final Map<String, Entry> snapshot;
+        lock.lock();
+        try {
+            final List<Map.Entry<String, Entry>> byAccess = new ArrayList<>(index.entrySet());
+            byAccess.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+            // contents are shared by entries with the same ETag, so they're counted once
+            final Map<String, Integer> references = new HashMap<>();
+            long total = 0;
+            for (Map.Entry<String, Entry> e : byAccess) {
+                if (references.merge(e.getValue().eTag, 1, Integer::sum) == 1) {
+                    total += e.getValue().size;
+                }
+            }
+            for (int i = 0; total > maxBytes && i < byAccess.size(); i++) {
+                final Entry evicted = byAccess.get(i).getValue();
+                index.remove(byAccess.get(i).getKey());
+                dirty = true;
+                if (references.merge(evicted.eTag, -1, Integer::sum) == 0) {
+                    total -= evicted.size;
+                }
+            }
+            for (Entry entry : index.values()) {
+                referenced.add(contentName(entry.eTag));
+            }
+            referenced.addAll(pending);
+            snapshot = dirty ? copyOfIndex() : null;
+            dirty = false;
+        } finally {
+            lock.unlock();
+        }
+        deleteUnreferenced(referenced);
+        if (snapshot != null) {
+            saveIndex(snapshot);
+        }
+    }
+
+    /**
+     * Stops the sweeper and saves the index.
+     */
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        final Map<String, Entry> snapshot;
+        lock.lock();
+        try {
+            snapshot = copyOfIndex();
+            dirty = false;
+        } finally {
+            lock.unlock();
+        }
+        saveIndex(snapshot);
+    }
+
+    int entryCount() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<String, Entry> copyOfIndex() {
+        final Map<String, Entry> copy = new HashMap<>(index.size());
+        index.forEach((key, entry) -> copy.put(key, new Entry(entry.eTag, entry.size, entry.lastAccess)));
+        return copy;
+    }
+
+    private void deleteUnreferenced(Set<String> referenced) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(objects)) {
+            for (Path file : files) {
+                final String name = file.getFileName().toString();
+                // temp files are either being written or left over from a crash, see loadIndex
+                if (!name.endsWith(TEMP_SUFFIX) && !referenced.contains(name)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            // the next sweep tries again
+        }
+    }
+
+    private void saveIndex(Map<String, Entry> snapshot) {
+        try {
+            final Path temp = Files.createTempFile(indexFile.getParent(), "index", TEMP_SUFFIX);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(INDEX_VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeUTF(e.getValue().eTag);
+                    out.writeLong(e.getValue().size);
+                    out.writeLong(e.getValue().lastAccess);
+                }
+            }
+            Files.move(temp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // the next sweep tries again
+            lock.lock();
+            try {
+                dirty = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Loads the saved index, keeping only the entries whose contents are still there, and
+     * deletes temp files left over from a crash. A missing or unreadable index means an empty
+     * cache, whose leftover contents the first sweep deletes.
+     */
+    private void loadIndex() {
+        if (Files.exists(indexFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                    throw new IOException("Not a cache index: " + indexFile);
+                }
+                final int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    final String key = in.readUTF();
+                    final Entry entry = new Entry(in.readUTF(), in.readLong(), in.readLong());
+                    if (Files.exists(contentPath(entry.eTag))) {
+                        index.put(key, entry);
+                    }
+                }
+            } catch (IOException e) {
+                index.clear();
+            }
+        }
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(objects, "*" + TEMP_SUFFIX)) {
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException ignore) {
+        }
+    }
+
+    private Path contentPath(String eTag) {
+        return objects.resolve(contentName(eTag));
+    }
+
+    private static String contentName(String eTag) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(eTag.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        final String eTag;
+        final long size;
+        long lastAccess;
+
+        Entry(String eTag, long size, long lastAccess) {
+            this.eTag = eTag;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
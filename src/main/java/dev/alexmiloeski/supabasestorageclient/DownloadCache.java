@@ -0,0 +1,224 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.DiskCachePolicy;
+import dev.alexmiloeski.supabasestorageclient.model.options.DownloadCachePolicy;
+import dev.alexmiloeski.supabasestorageclient.model.responses.ResponseWrapper;
+
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Downloaded files kept with their ETags, in memory (see {@link DownloadCachePolicy}) and/or
+ * on disk (see {@link DiskCachePolicy}). Every read still goes to the server, but with
+ * If-None-Match, so an unchanged file costs a 304 without a body. Files found on disk are
+ * promoted to memory when they're read.
+ * <br>The returned arrays may be the cached ones, so they must not be modified.
+ */
+class DownloadCache implements AutoCloseable {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Cached> entries = new HashMap<>();
+    // null when there's no memory tier
+    private final CacheEviction eviction;
+    // null when there's no disk tier
+    private final DiskCache disk;
+    private final SingleFlight singleFlight;
+
+    /**
+     * @param memory the memory tier's policy, or null for none
+     * @param disk the disk tier, or null for none
+     * @param singleFlight shares fetches of the same file, for requests that allow it
+     */
+    DownloadCache(DownloadCachePolicy memory, DiskCache disk, SingleFlight singleFlight) {
+        this.eviction = memory == null ? null : CacheEviction.of(memory);
+        this.disk = disk;
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * @param request makes a new request for the file; called again, to download the file
+     *                unconditionally, if it turns out to be gone from the disk after a 304.
+     *                Concurrent fetches are shared if it's {@link RequestMaker#coalesced()}
+     */
+    ResponseWrapper<byte[]> fetch(Supplier<RequestMaker> request, String key) {
+        final RequestMaker first = request.get();
+        final String coalescingKey = first.coalescingKey();
+        if (coalescingKey == null) {
+            return fetchOnce(first, request, key);
+        }
+        // the first caller fetches on its own thread, the others wait for it
+        return singleFlight.run("cached " + coalescingKey,
+                () -> CompletableFuture.completedFuture(fetchOnce(first, request, key))).join();
+    }
+
+    /**
+     * Async version of {@link #fetch(Supplier, String)}.
+     */
+    CompletableFuture<ResponseWrapper<byte[]>> fetchAsync(Supplier<RequestMaker> request, String key) {
+        final RequestMaker first = request.get();
+        final String coalescingKey = first.coalescingKey();
+        if (coalescingKey == null) {
+            return fetchOnceAsync(first, request, key);
+        }
+        return singleFlight.run("cached " + coalescingKey, () -> fetchOnceAsync(first, request, key));
+    }
+
+    private ResponseWrapper<byte[]> fetchOnce(RequestMaker first, Supplier<RequestMaker> request, String key) {
+        final Cached cached = lookUp(key);
+        final ResponseWrapper<byte[]> rw =
+                onResponse(key, cached, conditional(first, cached).makeInMemory(fetchedHandler()));
+        return rw != null ? rw : onResponse(key, null, request.get().makeInMemory(fetchedHandler()));
+    }
+
+    private CompletableFuture<ResponseWrapper<byte[]>> fetchOnceAsync(
+            RequestMaker first, Supplier<RequestMaker> request, String key
+    ) {
+        final Cached cached = lookUp(key);
+        final CompletableFuture<ResponseWrapper<Fetched>> future =
+                conditional(first, cached).makeInMemoryAsync(fetchedHandler());
+        final CompletableFuture<ResponseWrapper<byte[]>> result = future.thenCompose(rw -> {
+            final ResponseWrapper<byte[]> fetched = onResponse(key, cached, rw);
+            return fetched != null
+                    ? CompletableFuture.completedFuture(fetched)
+                    : request.get().makeInMemoryAsync(fetchedHandler()).thenApply(again -> onResponse(key, null, again));
+        });
+        result.whenComplete((rw, throwable) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Drops the file, e.g. because it's been changed through this client.
+     */
+    void invalidate(String key) {
+        if (eviction != null) {
+            lock.lock();
+            try {
+                entries.remove(key);
+                eviction.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (disk != null) {
+            disk.invalidate(key);
+        }
+    }
+
+    /**
+     * Closes the disk tier, if there is one.
+     */
+    @Override
+    public void close() {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+
+    /**
+     * @return what we have of the file, if anything; the body is null if it's only on disk
+     */
+    private Cached lookUp(String key) {
+        if (eviction != null) {
+            lock.lock();
+            try {
+                final Cached cached = entries.get(key);
+                if (cached != null) {
+                    eviction.onHit(key);
+                    return cached;
+                }
+                eviction.onMiss(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+        final String eTag = disk == null ? null : disk.eTagOf(key);
+        return eTag == null ? null : new Cached(null, eTag);
+    }
+
+    private static RequestMaker conditional(RequestMaker request, Cached cached) {
+        return cached == null ? request : request.header("If-None-Match", cached.eTag());
+    }
+
+    /**
+     * @return the response's body, or the cached one on 304 Not Modified; null if the cached
+     * one was on disk and is gone
+     */
+    private ResponseWrapper<byte[]> onResponse(String key, Cached cached, ResponseWrapper<Fetched> rw) {
+        if (!rw.hasBody()) {
+            return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception(), rw.attempts());
+        }
+        final Fetched fetched = rw.body();
+        if (fetched.body() == null) {
+            // 304 Not Modified
+            if (cached == null) {
+                return new ResponseWrapper<>(null, null, "Not Modified, but the file isn't cached", rw.attempts());
+            }
+            if (cached.body() != null) {
+                return new ResponseWrapper<>(cached.body(), null, null, rw.attempts());
+            }
+            final byte[] body = disk.read(key, cached.eTag());
+            if (body == null) {
+                return null;
+            }
+            storeInMemory(key, body, cached.eTag());
+            return new ResponseWrapper<>(body, null, null, rw.attempts());
+        }
+        storeInMemory(key, fetched.body(), fetched.eTag());
+        if (disk != null) {
+            if (fetched.eTag() == null) {
+                disk.invalidate(key);
+            } else {
+                disk.store(key, fetched.eTag(), fetched.body());
+            }
+        }
+        return new ResponseWrapper<>(fetched.body(), null, null, rw.attempts());
+    }
+
+    private void storeInMemory(String key, byte[] body, String eTag) {
+        if (eviction == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (entries.remove(key) != null) {
+                eviction.remove(key);
+            }
+            if (eTag == null) {
+                return;
+            }
+            entries.put(key, new Cached(body, eTag));
+            for (String evicted : eviction.add(key, body.length)) {
+                entries.remove(evicted);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static HttpResponse.BodyHandler<Fetched> fetchedHandler() {
+        return responseInfo -> {
+            final String eTag = responseInfo.headers().firstValue("ETag").orElse(null);
+            return responseInfo.statusCode() == 304
+                    ? HttpResponse.BodySubscribers.replacing(new Fetched(null, eTag))
+                    : HttpResponse.BodySubscribers.mapping(
+                            HttpResponse.BodySubscribers.ofByteArray(), body -> new Fetched(body, eTag));
+        };
+    }
+
+    /**
+     * @param body null if the file is only on disk
+     */
+    private record Cached(byte[] body, String eTag) {}
+
+    /**
+     * @param body null on 304 Not Modified
+     */
+    private record Fetched(byte[] body, String eTag) {}
+}
@@ -0,0 +1,155 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.FileObject;
+import dev.alexmiloeski.supabasestorageclient.model.options.ListFilesOptions;
+import dev.alexmiloeski.supabasestorageclient.model.responses.ResponseWrapper;
+import dev.alexmiloeski.supabasestorageclient.model.responses.StorageClientException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Walks a folder tree by listing many folders at once. Every page of every folder is one
+ * unit of work; up to {@code parallelism} of them are in flight at any time, and each
+ * received page queues its sub-folders (and the folder's next page, if it was full).
+ * Files are handed to the consumer through a queue, with their full paths as names, in no
+ * particular order. Listing pauses while the consumer is far behind.
+ * <br>The iterator itself isn't thread-safe, like most iterators.
+ */
+class FolderWalker implements Iterator<FileObject>, AutoCloseable {
+    private static final Object END = new Object();
+
+    private final StorageClient storageClient;
+    private final String bucketId;
+    private final int pageSize;
+    private final int parallelism;
+    private final int maxBuffered;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Page> pending = new ArrayDeque<>();
+    // FileObject, StorageClientException or END
+    private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+    private int inFlight;
+    private boolean stopped;
+    private Object nextResult;
+
+    FolderWalker(StorageClient storageClient, String bucketId, String prefix, int pageSize, int parallelism) {
+        if (pageSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("The page size and parallelism must be positive");
+        }
+        this.storageClient = storageClient;
+        this.bucketId = bucketId;
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.maxBuffered = pageSize * parallelism * 4;
+        pending.add(new Page(prefix == null ? "" : prefix, 0));
+        dispatch();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextResult == null) {
+            try {
+                nextResult = results.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while walking the folders", e);
+            }
+            dispatch();
+        }
+        if (nextResult instanceof StorageClientException exception) {
+            nextResult = END;
+            throw exception;
+        }
+        return nextResult != END;
+    }
+
+    @Override
+    public FileObject next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        FileObject file = (FileObject) nextResult;
+        nextResult = null;
+        return file;
+    }
+
+    /**
+     * Stops queueing work; pages that are already in flight are ignored once they arrive.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            stopped = true;
+            pending.clear();
+        } finally {
+            lock.unlock();
+        }
+        nextResult = END;
+    }
+
+    private void dispatch() {
+        lock.lock();
+        try {
+            while (!stopped && inFlight < parallelism && !pending.isEmpty() && results.size() < maxBuffered) {
+                Page page = pending.poll();
+                inFlight++;
+                storageClient.listFilesInBucketAsync(bucketId, new ListFilesOptions(page.prefix(), page.offset(), pageSize))
+                        .whenComplete((rw, e) -> onPage(page, rw != null ? rw : RequestMaker.toExceptionResponse(e)));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onPage(Page page, ResponseWrapper<List<FileObject>> rw) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (stopped) {
+                return;
+            }
+            if (!rw.hasBody()) {
+                stopped = true;
+                pending.clear();
+                results.add(new StorageClientException(
+                        "Could not list the files in " + bucketId + "/" + page.prefix(), rw));
+                return;
+            }
+            List<FileObject> entries = rw.body();
+            if (entries.size() == pageSize) {
+                // keep paging through this folder before going deeper
+                pending.addFirst(new Page(page.prefix(), page.offset() + pageSize));
+            }
+            for (FileObject entry : entries) {
+                String path = page.prefix().isEmpty() ? entry.name() : page.prefix() + "/" + entry.name();
+                if (entry.id() == null && entry.metadata() == null) {
+                    pending.add(new Page(path, 0));
+                } else {
+                    results.add(new FileObject(entry.id(), path, entry.createdAt(), entry.updatedAt(),
+                            entry.lastAccessedAt(), entry.metadata()));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+        lock.lock();
+        try {
+            if (!stopped && inFlight == 0 && pending.isEmpty()) {
+                stopped = true;
+                results.add(END);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Page(String prefix, int offset) {}
+}
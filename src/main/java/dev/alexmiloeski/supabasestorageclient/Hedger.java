@@ -0,0 +1,46 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.HedgingPolicy;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the latencies of the most recent hedgeable requests and derives the hedging delay from
+ * them, as described in {@link HedgingPolicy}.
+ */
+class Hedger {
+    private static final int WINDOW = 256;
+    // fewer samples than this make a poor percentile
+    private static final int MIN_SAMPLES = 20;
+
+    private final HedgingPolicy policy;
+    private final AtomicLongArray latencies = new AtomicLongArray(WINDOW);
+    private final AtomicLong count = new AtomicLong();
+
+    Hedger(HedgingPolicy policy) {
+        this.policy = policy;
+    }
+
+    void record(long latencyNanos) {
+        latencies.set((int) (count.getAndIncrement() % WINDOW), latencyNanos);
+    }
+
+    /**
+     * @return how long to wait for the first attempt before sending a duplicate
+     */
+    long delayNanos() {
+        final int samples = (int) Math.min(count.get(), WINDOW);
+        if (samples < MIN_SAMPLES) {
+            return policy.initialDelay().toNanos();
+        }
+        final long[] sorted = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        final long percentile = sorted[(int) Math.ceil(policy.percentile() * samples) - 1];
+        return Math.max(policy.minDelay().toNanos(), percentile);
+    }
+}
@@ -0,0 +1,53 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evicts the least recently used keys first.
+ */
+class LruEviction implements CacheEviction {
+    private final long maxWeight;
+    // key -> weight, in access order
+    private final LinkedHashMap<String, Long> keys = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    LruEviction(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public void onHit(String key) {
+        keys.get(key);
+    }
+
+    @Override
+    public void onMiss(String key) {
+    }
+
+    @Override
+    public List<String> add(String key, long weight) {
+        keys.put(key, weight);
+        this.weight += weight;
+        final List<String> evicted = new ArrayList<>();
+        final Iterator<Map.Entry<String, Long>> eldest = keys.entrySet().iterator();
+        while (this.weight > maxWeight) {
+            final Map.Entry<String, Long> entry = eldest.next();
+            this.weight -= entry.getValue();
+            evicted.add(entry.getKey());
+            eldest.remove();
+        }
+        return evicted;
+    }
+
+    @Override
+    public void remove(String key) {
+        final Long removed = keys.remove(key);
+        if (removed != null) {
+            weight -= removed;
+        }
+    }
+}
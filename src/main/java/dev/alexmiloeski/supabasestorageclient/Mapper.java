@@ -1,92 +1,199 @@
 package dev.alexmiloeski.supabasestorageclient;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import dev.alexmiloeski.supabasestorageclient.model.Bucket;
 import dev.alexmiloeski.supabasestorageclient.model.FileObject;
 import dev.alexmiloeski.supabasestorageclient.model.FileObjectInfo;
+import dev.alexmiloeski.supabasestorageclient.model.LazyFileObject;
 import dev.alexmiloeski.supabasestorageclient.model.responses.ErrorResponse;
 import dev.alexmiloeski.supabasestorageclient.model.responses.FileObjectIdentity;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Reads response bodies into the model records. Every type has its reader built once, up
+ * front, so a call only pays for the parsing itself. Bodies are parsed from the bytes they
+ * arrived in, without decoding them into a String first.
+ * <br>Request bodies go the other way through one shared writer, straight into bytes.
+ */
 class Mapper {
     static final ObjectMapper mapper = new ObjectMapper();
 
-    // todo: replace RuntimeException with MapperException
+    private static final ObjectReader BUCKET = mapper.readerFor(Bucket.class);
+    private static final ObjectReader BUCKETS = mapper.readerFor(new TypeReference<List<Bucket>>() {});
+    private static final ObjectReader OBJECT = mapper.readerFor(FileObject.class);
+    private static final ObjectReader OBJECTS = mapper.readerFor(new TypeReference<List<FileObject>>() {});
+    private static final ObjectReader OBJECT_INFO = mapper.readerFor(FileObjectInfo.class);
+    private static final ObjectReader ERROR_RESPONSE = mapper.readerFor(ErrorResponse.class);
+    private static final ObjectReader IDENTITY = mapper.readerFor(FileObjectIdentity.class);
+    private static final ObjectReader MESSAGE = mapper.readerFor(Message.class);
+    private static final ObjectReader HEALTH = mapper.readerFor(Health.class);
+    private static final ObjectWriter WRITER = mapper.writer();
 
-    // todo: there's a lot of repeated code that can be extracted
+    // todo: replace RuntimeException with MapperException
 
     private Mapper() {}
 
-    static Bucket toBucket(String json) {
+    static Bucket toBucket(byte[] json) {
         if (json == null) throw new RuntimeException("received json was null");
-        try {
-            return mapper.readValue(json, Bucket.class);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
+        return read(BUCKET, json);
     }
 
-    static List<Bucket> toBuckets(String json) {
+    /**
+     * @return whether the health check response says the server is healthy
+     */
+    static boolean toHealthy(byte[] json) {
+        return json != null && Boolean.TRUE.equals(toHealthyValue(json));
+    }
+
+    /**
+     * @return the value of "healthy" in the health check response, of whichever type it has,
+     * or null if there isn't one
+     */
+    static Object toHealthyValue(byte[] json) {
         if (json == null) return null;
-        try {
-            return mapper.readValue(json, new TypeReference<>() {
-            });
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
+        return Mapper.<Health>read(HEALTH, json).healthy();
     }
 
-    static List<FileObject> toObjects(String json) {
+    static List<Bucket> toBuckets(byte[] json) {
         if (json == null) return null;
-        try {
-            return mapper.readValue(json, new TypeReference<>() {});
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
+        return read(BUCKETS, json);
     }
 
-    static FileObjectInfo toObjectInfo(String json) {
+    static List<FileObject> toObjects(byte[] json) {
         if (json == null) return null;
-        try {
-            return mapper.readValue(json, new TypeReference<>() {});
-        } catch (JsonProcessingException e) {
+        return read(OBJECTS, json);
+    }
+
+    /**
+     * Splits a listing into its entries without decoding them: the array is only tokenized,
+     * to find where each entry's object starts and ends, and the entries are views of those
+     * slices of the given bytes.
+     */
+    static List<LazyFileObject> toLazyObjects(byte[] json) {
+        if (json == null) return null;
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("expected a JSON array, got " + parser.currentToken());
+            }
+            final List<LazyFileObject> objects = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                final int start = (int) parser.currentTokenLocation().getByteOffset();
+                parser.skipChildren();
+                final int end = (int) parser.currentLocation().getByteOffset();
+                objects.add(new LazyFileObject(json, start, end - start));
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new RuntimeException("expected a JSON object, got " + parser.currentToken());
+            }
+            return objects;
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    static ErrorResponse toErrorResponse(String json, int statusCode) {
-        if (json == null) return null;
-        if (json.trim().isEmpty()) return new ErrorResponse(statusCode + "",
-                "no_response", "The response did not contain a body.");
-        try {
-            return mapper.readValue(json, new TypeReference<>() {});
-        } catch (JsonProcessingException e) {
+    /**
+     * Reads a listing from the stream one entry at a time, as the bytes come in, and hands
+     * each entry to the consumer as soon as it's parsed; only the entry being parsed is held
+     * in memory. The stream is closed when this returns, also if the consumer throws.
+     * @return the number of entries passed to the consumer
+     */
+    static int forEachObject(InputStream json, Consumer<? super FileObject> consumer) {
+        int count = 0;
+        try (json; MappingIterator<FileObject> objects = OBJECT.readValues(json)) {
+            while (objects.hasNextValue()) {
+                consumer.accept(objects.nextValue());
+                count++;
+            }
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        return count;
     }
 
-    static ErrorResponse toErrorResponse(String json) {
-        return toErrorResponse(json, 0);
+    static FileObjectInfo toObjectInfo(byte[] json) {
+        if (json == null) return null;
+        return read(OBJECT_INFO, json);
     }
 
-    static FileObjectIdentity toIdentity(String json) {
+    static ErrorResponse toErrorResponse(byte[] json, int statusCode) {
         if (json == null) return null;
+        if (isBlank(json)) return noResponse(statusCode);
+        return read(ERROR_RESPONSE, json);
+    }
+
+    static FileObjectIdentity toIdentity(byte[] json) {
+        if (json == null) return null;
+        return read(IDENTITY, json);
+    }
+
+    /**
+     * Maps the generic message response, e.g. {"message":"Successfully deleted"}
+     */
+    static String toMessage(byte[] json) {
+        if (json == null) return null;
+        return Mapper.<Message>read(MESSAGE, json).message();
+    }
+
+    static String toJson(Object object) {
+        if (object == null) return "";
         try {
-            return mapper.readValue(json, new TypeReference<>() {});
+            return WRITER.writeValueAsString(object);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
     }
 
-    static String toJson(Object object) {
-        if (object == null) return "";
+    /**
+     * Encodes a request body. Jackson writes it into its own recycled buffers and copies it
+     * out once, so there's no intermediate String and no encoding step; the result is what
+     * gets sent, as it is.
+     */
+    static byte[] toJsonBytes(Object object) {
+        if (object == null) return new byte[0];
         try {
-            return Mapper.mapper.writeValueAsString(object);
+            return WRITER.writeValueAsBytes(object);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
     }
+
+    private static <T> T read(ObjectReader reader, byte[] json) {
+        try {
+            return reader.readValue(json);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ErrorResponse noResponse(int statusCode) {
+        return new ErrorResponse(statusCode + "", "no_response", "The response did not contain a body.");
+    }
+
+    private static boolean isBlank(byte[] json) {
+        for (byte b : json) {
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record Message(String message) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record Health(Object healthy) {}
 }
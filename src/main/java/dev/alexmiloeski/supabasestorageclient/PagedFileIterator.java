@@ -0,0 +1,83 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.FileObject;
+import dev.alexmiloeski.supabasestorageclient.model.options.ListFilesOptions;
+import dev.alexmiloeski.supabasestorageclient.model.responses.ResponseWrapper;
+import dev.alexmiloeski.supabasestorageclient.model.responses.StorageClientException;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Iterates over all files under a prefix, one page at a time. As soon as a full page
+ * arrives, the next one is requested in the background, so it's usually ready by the
+ * time the current page has been consumed. A page shorter than the page size is the last one.
+ * <br>Not thread-safe, like most iterators.
+ */
+class PagedFileIterator implements Iterator<FileObject>, AutoCloseable {
+    private final StorageClient storageClient;
+    private final String bucketId;
+    private final String prefix;
+    private final int pageSize;
+    private Iterator<FileObject> currentPage = Collections.emptyIterator();
+    // null once the last page has been received (or the iterator closed)
+    private CompletableFuture<ResponseWrapper<List<FileObject>>> nextPage;
+    private int nextOffset;
+
+    PagedFileIterator(StorageClient storageClient, String bucketId, String prefix, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("The page size must be positive");
+        }
+        this.storageClient = storageClient;
+        this.bucketId = bucketId;
+        this.prefix = prefix;
+        this.pageSize = pageSize;
+        this.nextPage = fetch(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext()) {
+            if (nextPage == null) {
+                return false;
+            }
+            ResponseWrapper<List<FileObject>> rw = nextPage.join();
+            if (!rw.hasBody()) {
+                nextPage = null;
+                throw new StorageClientException("Could not list the files in bucket " + bucketId, rw);
+            }
+            List<FileObject> page = rw.body();
+            nextPage = page.size() < pageSize ? null : fetch(nextOffset);
+            currentPage = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public FileObject next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    /**
+     * Drops the page that's being prefetched, if any. The iterator is exhausted afterwards.
+     */
+    @Override
+    public void close() {
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+        currentPage = Collections.emptyIterator();
+    }
+
+    private CompletableFuture<ResponseWrapper<List<FileObject>>> fetch(int offset) {
+        nextOffset = offset + pageSize;
+        return storageClient.listFilesInBucketAsync(bucketId, new ListFilesOptions(prefix, offset, pageSize));
+    }
+}
@@ -0,0 +1,64 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.RateLimit;
+import dev.alexmiloeski.supabasestorageclient.model.options.RateLimits;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hands out permits from the token buckets configured by {@link RateLimits}, creating the
+ * per-bucket ones on first use.
+ */
+class RateLimiter {
+    enum Budget {
+        METADATA, DATA
+    }
+
+    private final RateLimits limits;
+    private final long maxWaitNanos;
+    // used for everything when the limits are global, and for calls without a bucket id otherwise
+    private final TokenBucket sharedMetadata;
+    private final TokenBucket sharedData;
+    private final ConcurrentMap<String, TokenBucket> metadataByBucket = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TokenBucket> dataByBucket = new ConcurrentHashMap<>();
+
+    RateLimiter(RateLimits limits) {
+        this.limits = limits;
+        this.maxWaitNanos = limits.maxWait() == null ? Long.MAX_VALUE : toNanos(limits);
+        this.sharedMetadata = limits.metadata() == null ? null : new TokenBucket(limits.metadata());
+        this.sharedData = limits.data() == null ? null : new TokenBucket(limits.data());
+    }
+
+    /**
+     * Takes a permit for one request.
+     * @param bucketId the bucket the request is about, or null if it isn't about a single one
+     * @return how many nanoseconds to wait before sending, or -1 if the wait would be longer
+     * than the configured max wait
+     */
+    long reserve(Budget budget, String bucketId) {
+        final TokenBucket tokenBucket = tokenBucket(budget, bucketId);
+        return tokenBucket == null ? 0 : tokenBucket.reserve(maxWaitNanos);
+    }
+
+    private TokenBucket tokenBucket(Budget budget, String bucketId) {
+        final RateLimit limit = budget == Budget.DATA ? limits.data() : limits.metadata();
+        if (limit == null) {
+            return null;
+        }
+        final TokenBucket shared = budget == Budget.DATA ? sharedData : sharedMetadata;
+        if (!limits.perBucket() || bucketId == null) {
+            return shared;
+        }
+        final ConcurrentMap<String, TokenBucket> byBucket = budget == Budget.DATA ? dataByBucket : metadataByBucket;
+        return byBucket.computeIfAbsent(bucketId, ignore -> new TokenBucket(limit));
+    }
+
+    private static long toNanos(RateLimits limits) {
+        try {
+            return limits.maxWait().toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
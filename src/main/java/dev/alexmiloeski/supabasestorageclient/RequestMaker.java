@@ -1,18 +1,44 @@
 package dev.alexmiloeski.supabasestorageclient;
 
+import dev.alexmiloeski.supabasestorageclient.model.options.RetryPolicy;
+import dev.alexmiloeski.supabasestorageclient.model.options.Timeouts;
+import dev.alexmiloeski.supabasestorageclient.model.responses.FileStream;
 import dev.alexmiloeski.supabasestorageclient.model.responses.ResponseWrapper;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 class RequestMaker {
     private static final String STORAGE_PATH = "/storage/v1";
     private static final String BUCKET_PATH = "/bucket";
     private static final String OBJECT_PATH = "/object";
 
-    private final HttpClient client;
+    private final Transport transport;
     private final String apiUrl;
     private final String apiKey;
     private String resource = "";
@@ -20,19 +46,35 @@ class RequestMaker {
     private Methods method = Methods.GET;
     private String contentType;
     private HttpRequest.BodyPublisher body;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private boolean idempotent;
+    private boolean repeatableBody = true;
+    private RateLimiter.Budget budget;
+    private String budgetBucketId;
+    private boolean hedged;
+    private boolean healthCheck;
+    private boolean coalesced;
+    // System.nanoTime() based; only meaningful if hasDeadline
+    private long deadlineNanos;
+    private boolean hasDeadline;
+    // the raw futures of the attempts sent asynchronously, cancelled (which aborts their exchanges)
+    // once the request has its answer, i.e. when it's cancelled, its deadline passes, or the
+    // other attempt of a hedged request answers first
+    private final Queue<CompletableFuture<?>> sends = new ConcurrentLinkedQueue<>();
+    private volatile boolean aborted;
 
     RequestMaker(String apiUrl, String apiKey) {
-        this(apiUrl, apiKey, null);
+        this(apiUrl, apiKey, (HttpClient) null);
     }
 
     RequestMaker(String apiUrl, String apiKey, HttpClient httpClient) {
+        this(apiUrl, apiKey, new Transport(httpClient == null ? HttpClient.newHttpClient() : httpClient));
+    }
+
+    RequestMaker(String apiUrl, String apiKey, Transport transport) {
         this.apiUrl = apiUrl;
         this.apiKey = apiKey;
-        if (httpClient == null) {
-            client = HttpClient.newHttpClient();
-        } else {
-            client = httpClient;
-        }
+        this.transport = transport;
     }
 
     RequestMaker bucket() {
@@ -56,31 +98,13 @@ class RequestMaker {
 
     RequestMaker post(Object body) {
         this.method = Methods.POST;
-        // note: can't use enhanced switch with pattern matching in Java 17
-        if (body == null) {
-            this.body = HttpRequest.BodyPublishers.noBody();
-        } else if (body instanceof String sBody) {
-            this.body = HttpRequest.BodyPublishers.ofString(sBody);
-        } else if (body instanceof byte[] baBody) {
-            this.body = HttpRequest.BodyPublishers.ofByteArray(baBody);
-        } else {
-            throw new IllegalArgumentException("POST body can only be String or byte array");
-        }
+        this.body = toBodyPublisher(body);
         return this;
     }
 
     RequestMaker put(Object body) {
         this.method = Methods.PUT;
-        // note: can't use enhanced switch with pattern matching in Java 17
-        if (body == null) {
-            this.body = HttpRequest.BodyPublishers.noBody();
-        } else if (body instanceof String sBody) {
-            this.body = HttpRequest.BodyPublishers.ofString(sBody);
-        } else if (body instanceof byte[] baBody) {
-            this.body = HttpRequest.BodyPublishers.ofByteArray(baBody);
-        } else {
-            throw new IllegalArgumentException("POST body can only be String or byte array");
-        }
+        this.body = toBodyPublisher(body);
         return this;
     }
 
@@ -89,6 +113,12 @@ class RequestMaker {
         return this;
     }
 
+    RequestMaker delete(Object body) {
+        this.method = Methods.DELETE;
+        this.body = toBodyPublisher(body);
+        return this;
+    }
+
     RequestMaker jsonContent() {
         return contentType("application/json");
     }
@@ -98,38 +128,709 @@ class RequestMaker {
         return this;
     }
 
+    RequestMaker header(String name, String value) {
+        this.headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * Gives up on the request, retries included, once the deadline has passed: no attempt
+     * outlives it, and no retry or permit wait is started that would end after it.
+     * The earliest deadline wins if it's set more than once.
+     * @param deadlineNanos a {@link System#nanoTime()} value
+     */
+    RequestMaker deadline(long deadlineNanos) {
+        if (!hasDeadline || deadlineNanos - this.deadlineNanos < 0) {
+            this.deadlineNanos = deadlineNanos;
+            this.hasDeadline = true;
+        }
+        return this;
+    }
+
+    /**
+     * Makes this the health check request, which is never rejected by the circuit breaker
+     * and doesn't count towards opening it, since it's how we find out whether to close it.
+     */
+    RequestMaker healthCheck() {
+        this.healthCheck = true;
+        return path("health");
+    }
+
+    /**
+     * Takes a permit from the given budget before every attempt, see
+     * {@link dev.alexmiloeski.supabasestorageclient.model.options.RateLimits}.
+     * @param bucketId the bucket the request is about, or null if it isn't about a single one
+     */
+    RequestMaker limit(RateLimiter.Budget budget, String bucketId) {
+        this.budget = budget;
+        this.budgetBucketId = bucketId;
+        return this;
+    }
+
+    /**
+     * Marks a POST as safe to repeat, like a read-only query. GET, PUT, DELETE and upsert
+     * requests are idempotent anyway.
+     */
+    RequestMaker idempotent() {
+        this.idempotent = true;
+        return this;
+    }
+
+    /**
+     * Lets {@link #make()} and {@link #makeAsync()} send a duplicate of this (small, idempotent)
+     * request if it's slow, when the transport has a
+     * {@link dev.alexmiloeski.supabasestorageclient.model.options.HedgingPolicy}; so do
+     * {@link #makeInMemory} and {@link #makeInMemoryAsync}. The other make methods ignore it.
+     */
+    RequestMaker hedged() {
+        this.hedged = true;
+        return this;
+    }
+
+    /**
+     * Lets {@link #make()} and {@link #makeAsync()} share the response of an identical request
+     * (same method, URI, headers and auth) that's already in flight, instead of sending this one.
+     * Only GETs without a deadline are shared, so one caller's deadline can't fail another's
+     * request. Cancelling a shared request's future only detaches its caller.
+     */
+    RequestMaker coalesced() {
+        this.coalesced = true;
+        return this;
+    }
+
+    /**
+     * @return the key under which identical requests are shared, or null if this one can't be
+     */
+    String coalescingKey() {
+        if (!coalesced || method != Methods.GET || hasDeadline) {
+            return null;
+        }
+        return method + " " + uri() + " " + headers + " " + apiKey;
+    }
+
+    /**
+     * Makes the request, retrying transient failures of idempotent requests according to the
+     * transport's {@link RetryPolicy}, and decodes the body as UTF-8 text.
+     */
     ResponseWrapper<String> make() {
-        final String _path = path == null ? "" : "/" + path;
+        return makeBuffered("text", RequestMaker::toTextResponseWrapper, UnaryOperator.identity());
+    }
+
+    /**
+     * Async version of {@link #make()}. The returned future never completes exceptionally;
+     * failures are reported through {@link ResponseWrapper#exception()} just like in make().
+     * Cancelling it aborts the request.
+     */
+    CompletableFuture<ResponseWrapper<String>> makeAsync() {
+        return makeBufferedAsync("text", RequestMaker::toTextResponseWrapper, UnaryOperator.identity());
+    }
+
+    /**
+     * Same as {@link #make()}, but the body is handed over as the raw bytes it arrived in.
+     * JSON responses should be read this way and passed to {@link Mapper}, so that they're
+     * never copied into a String first. A caller whose request was coalesced with another
+     * one gets its own copy of the array.
+     */
+    ResponseWrapper<byte[]> makeBytes() {
+        return makeBuffered("bytes", RequestMaker::toResponseWrapper, RequestMaker::withOwnBody);
+    }
+
+    /**
+     * Async version of {@link #makeBytes()}.
+     */
+    CompletableFuture<ResponseWrapper<byte[]>> makeBytesAsync() {
+        return makeBufferedAsync("bytes", RequestMaker::toResponseWrapper, RequestMaker::withOwnBody);
+    }
+
+    private static ResponseWrapper<byte[]> withOwnBody(ResponseWrapper<byte[]> rw) {
+        return rw.hasBody()
+                ? new ResponseWrapper<>(rw.body().clone(), rw.errorResponse(), rw.exception(), rw.attempts())
+                : rw;
+    }
+
+    /**
+     * @param kind tells apart the coalescing keys of requests that are read into different types
+     * @param copy gives a coalesced caller its own copy of the shared response
+     */
+    private <T> ResponseWrapper<T> makeBuffered(
+            String kind, Function<HttpResponse<byte[]>, ResponseWrapper<T>> toResponseWrapper,
+            UnaryOperator<ResponseWrapper<T>> copy
+    ) {
+        if (isHedged()) {
+            return makeBufferedAsync(kind, toResponseWrapper, copy).join();
+        }
+        final String coalescingKey = coalescingKey();
+        if (coalescingKey != null) {
+            // the first caller makes the request on its own thread, the others wait for it
+            return transport.singleFlight().run(kind + " " + coalescingKey, () -> CompletableFuture.completedFuture(
+                    execute(HttpResponse.BodyHandlers.ofByteArray(), toResponseWrapper)), copy).join();
+        }
+        return execute(HttpResponse.BodyHandlers.ofByteArray(), toResponseWrapper);
+    }
+
+    private <T> CompletableFuture<ResponseWrapper<T>> makeBufferedAsync(
+            String kind, Function<HttpResponse<byte[]>, ResponseWrapper<T>> toResponseWrapper,
+            UnaryOperator<ResponseWrapper<T>> copy
+    ) {
+        final String coalescingKey = coalescingKey();
+        if (coalescingKey != null) {
+            return transport.singleFlight().run(kind + " " + coalescingKey,
+                    () -> sendBufferedAsync(toResponseWrapper), copy);
+        }
+        return sendBufferedAsync(toResponseWrapper);
+    }
+
+    private <T> CompletableFuture<ResponseWrapper<T>> sendBufferedAsync(
+            Function<HttpResponse<byte[]>, ResponseWrapper<T>> toResponseWrapper
+    ) {
+        if (isHedged()) {
+            return abortable(executeHedged(() -> executeAsync(HttpResponse.BodyHandlers.ofByteArray(),
+                    toResponseWrapper, 1)));
+        }
+        return abortable(executeAsync(HttpResponse.BodyHandlers.ofByteArray(), toResponseWrapper, 1));
+    }
+
+    /**
+     * Makes the request and hands the body over unread, as an {@link InputStream}
+     * together with the status code and headers.
+     */
+    ResponseWrapper<FileStream> makeStream() {
+        return make(fileStreamHandler());
+    }
+
+    /**
+     * Async version of {@link #makeStream()}.
+     */
+    CompletableFuture<ResponseWrapper<FileStream>> makeStreamAsync() {
+        return makeAsync(fileStreamHandler());
+    }
+
+    /**
+     * Makes the request and writes the body straight to the given file through its
+     * file channel. The file is truncated when each attempt's body starts, so a retry that
+     * gets a shorter body doesn't leave the failed attempt's tail behind. On error responses
+     * the file is left untouched.
+     */
+    ResponseWrapper<Path> makeToFile(Path file) {
+        return make(HttpResponse.BodyHandlers.ofFile(file, CREATE, WRITE, TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Async version of {@link #makeToFile(Path)}.
+     */
+    CompletableFuture<ResponseWrapper<Path>> makeToFileAsync(Path file) {
+        return makeAsync(HttpResponse.BodyHandlers.ofFile(file, CREATE, WRITE, TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Makes the request and lets the given handler consume the body. Error responses
+     * (status 400 and above) never reach the handler; they're read into memory and mapped
+     * to an {@link dev.alexmiloeski.supabasestorageclient.model.responses.ErrorResponse}.
+     */
+    <T> ResponseWrapper<T> make(HttpResponse.BodyHandler<T> bodyHandler) {
+        return execute(errorAware(bodyHandler), RequestMaker::fromOutcome);
+    }
+
+    /**
+     * Async version of {@link #make(HttpResponse.BodyHandler)}.
+     */
+    <T> CompletableFuture<ResponseWrapper<T>> makeAsync(HttpResponse.BodyHandler<T> bodyHandler) {
+        return abortable(executeAsync(errorAware(bodyHandler), RequestMaker::fromOutcome, 1));
+    }
+
+    /**
+     * Same as {@link #make(HttpResponse.BodyHandler)}, for a handler that reads the whole body
+     * into memory, so that the request can be {@link #hedged()}.
+     */
+    <T> ResponseWrapper<T> makeInMemory(HttpResponse.BodyHandler<T> bodyHandler) {
+        return isHedged() ? makeInMemoryAsync(bodyHandler).join() : make(bodyHandler);
+    }
+
+    /**
+     * Async version of {@link #makeInMemory(HttpResponse.BodyHandler)}.
+     */
+    <T> CompletableFuture<ResponseWrapper<T>> makeInMemoryAsync(HttpResponse.BodyHandler<T> bodyHandler) {
+        if (isHedged()) {
+            return abortable(executeHedged(() -> executeAsync(errorAware(bodyHandler), RequestMaker::fromOutcome, 1)));
+        }
+        return makeAsync(bodyHandler);
+    }
+
+    private <R, T> ResponseWrapper<T> execute(HttpResponse.BodyHandler<R> bodyHandler,
+                                              Function<HttpResponse<R>, ResponseWrapper<T>> toResponseWrapper) {
+        final RetryPolicy retryPolicy = transport.retryPolicy();
+        for (int attempt = 1; ; attempt++) {
+            if (isPastDeadline(0)) {
+                return deadlineExceeded(attempt - 1);
+            }
+            if (isCircuitOpen()) {
+                return circuitOpen(attempt - 1);
+            }
+            final long permitWait = reservePermit();
+            if (permitWait < 0) {
+                return rateLimitExceeded(attempt - 1);
+            }
+            if (isPastDeadline(permitWait)) {
+                return deadlineExceeded(attempt - 1);
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(permitWait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new ResponseWrapper<>(null, null, "Interrupted while waiting for a permit", attempt - 1);
+            }
+            final boolean lastAttempt = attempt >= retryPolicy.maxAttempts() || !isRetryable();
+            long backoff;
+            try {
+                HttpResponse<R> response = send(buildRequest(), bodyHandler);
+                recordOutcome(response.statusCode());
+                if (lastAttempt || !Retries.isRetryable(response.statusCode())) {
+                    return withAttempts(toResponseWrapper.apply(response), attempt);
+                }
+                backoff = Retries.backoffMillis(retryPolicy, attempt, response.headers());
+                if (isPastDeadline(TimeUnit.MILLISECONDS.toNanos(backoff))) {
+                    return withAttempts(toResponseWrapper.apply(response), attempt);
+                }
+            } catch (TimeoutException e) {
+                // the deadline passed while waiting for a concurrency slot, so nothing was sent
+                return deadlineExceeded(attempt - 1);
+            } catch (Exception e) {
+                recordOutcome(e);
+                backoff = Retries.backoffMillis(retryPolicy, attempt, null);
+                if (lastAttempt || !Retries.isRetryable(e) || isPastDeadline(TimeUnit.MILLISECONDS.toNanos(backoff))) {
+                    return new ResponseWrapper<>(null, null, describe(e), attempt);
+                }
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new ResponseWrapper<>(null, null, "Interrupted while waiting to retry", attempt);
+            }
+        }
+    }
+
+    private <R, T> CompletableFuture<ResponseWrapper<T>> executeAsync(
+            HttpResponse.BodyHandler<R> bodyHandler,
+            Function<HttpResponse<R>, ResponseWrapper<T>> toResponseWrapper,
+            int attempt
+    ) {
+        if (isPastDeadline(0)) {
+            return CompletableFuture.completedFuture(deadlineExceeded(attempt - 1));
+        }
+        if (isCircuitOpen()) {
+            return CompletableFuture.completedFuture(circuitOpen(attempt - 1));
+        }
+        final long permitWait = reservePermit();
+        if (permitWait < 0) {
+            return CompletableFuture.completedFuture(rateLimitExceeded(attempt - 1));
+        }
+        if (isPastDeadline(permitWait)) {
+            return CompletableFuture.completedFuture(deadlineExceeded(attempt - 1));
+        }
+        if (permitWait == 0) {
+            return sendAttemptAsync(bodyHandler, toResponseWrapper, attempt);
+        }
+        return delay(permitWait, TimeUnit.NANOSECONDS)
+                .thenCompose(ignore -> sendAttemptAsync(bodyHandler, toResponseWrapper, attempt));
+    }
+
+    private <R, T> CompletableFuture<ResponseWrapper<T>> sendAttemptAsync(
+            HttpResponse.BodyHandler<R> bodyHandler,
+            Function<HttpResponse<R>, ResponseWrapper<T>> toResponseWrapper,
+            int attempt
+    ) {
+        final RetryPolicy retryPolicy = transport.retryPolicy();
+        final boolean lastAttempt = attempt >= retryPolicy.maxAttempts() || !isRetryable();
+        CompletableFuture<HttpResponse<R>> future;
+        try {
+            future = sendAsync(buildRequest(), bodyHandler);
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.handle((response, throwable) -> {
+            long backoff;
+            if (throwable == null) {
+                recordOutcome(response.statusCode());
+                if (lastAttempt || !Retries.isRetryable(response.statusCode())) {
+                    return CompletableFuture.completedFuture(withAttempts(toResponseWrapper.apply(response), attempt));
+                }
+                backoff = Retries.backoffMillis(retryPolicy, attempt, response.headers());
+                if (isPastDeadline(TimeUnit.MILLISECONDS.toNanos(backoff))) {
+                    return CompletableFuture.completedFuture(withAttempts(toResponseWrapper.apply(response), attempt));
+                }
+            } else {
+                recordOutcome(throwable);
+                backoff = Retries.backoffMillis(retryPolicy, attempt, null);
+                if (lastAttempt || !Retries.isRetryable(throwable)
+                        || isPastDeadline(TimeUnit.MILLISECONDS.toNanos(backoff))) {
+                    return CompletableFuture.completedFuture(
+                            withAttempts(RequestMaker.<T>toExceptionResponse(throwable), attempt));
+                }
+            }
+            return delay(backoff, TimeUnit.MILLISECONDS)
+                    .thenCompose(ignore -> executeAsync(bodyHandler, toResponseWrapper, attempt + 1));
+        }).thenCompose(Function.identity())
+                .exceptionally(RequestMaker::toExceptionResponse);
+    }
+
+    /**
+     * Completes with "deadline exceeded" when the deadline passes, and aborts whatever is still
+     * in flight once the returned future completes, in any way, including being cancelled.
+     */
+    private <T> CompletableFuture<ResponseWrapper<T>> abortable(CompletableFuture<ResponseWrapper<T>> execution) {
+        final CompletableFuture<ResponseWrapper<T>> result = hasDeadline
+                ? execution.copy()
+                        .orTimeout(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)
+                        // the execution itself never completes exceptionally
+                        .exceptionally(timeout -> deadlineExceeded(sends.size()))
+                : execution.copy();
+        result.whenComplete((rw, throwable) -> abort());
+        return result;
+    }
+
+    private void abort() {
+        aborted = true;
+        sends.forEach(future -> future.cancel(true));
+    }
+
+    /**
+     * @return whether the deadline passes within the given number of nanoseconds from now
+     */
+    private boolean isPastDeadline(long withinNanos) {
+        return hasDeadline && deadlineNanos - System.nanoTime() - withinNanos <= 0;
+    }
+
+    private <T> ResponseWrapper<T> deadlineExceeded(int attempts) {
+        return new ResponseWrapper<>(null, null, "Deadline exceeded", attempts);
+    }
+
+    private boolean isCircuitOpen() {
+        return !healthCheck && transport.circuitBreaker() != null && transport.circuitBreaker().isOpen();
+    }
+
+    private <T> ResponseWrapper<T> circuitOpen(int attempts) {
+        return new ResponseWrapper<>(null, null,
+                "Circuit breaker is open: the storage server is failing, so requests are rejected"
+                        + " until its health check succeeds", attempts);
+    }
+
+    private void recordOutcome(int statusCode) {
+        final CircuitBreaker circuitBreaker = transport.circuitBreaker();
+        if (circuitBreaker == null || healthCheck) {
+            return;
+        }
+        if (CircuitBreaker.isFailure(statusCode)) {
+            circuitBreaker.onFailure(this::probeHealth, transport::isClosed);
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private void recordOutcome(Throwable throwable) {
+        final CircuitBreaker circuitBreaker = transport.circuitBreaker();
+        if (circuitBreaker != null && !healthCheck && CircuitBreaker.isFailure(throwable)) {
+            circuitBreaker.onFailure(this::probeHealth, transport::isClosed);
+        }
+    }
+
+    private CompletableFuture<Boolean> probeHealth() {
+        return new RequestMaker(apiUrl, apiKey, transport)
+                .healthCheck()
+                .makeBytesAsync()
+                .thenApply(rw -> rw.hasBody() && Mapper.toHealthy(rw.body()));
+    }
+
+    private boolean isHedged() {
+        return hedged && transport.hedger() != null;
+    }
+
+    /**
+     * Runs the request, and again if it hasn't answered after the hedging delay; the first
+     * answer wins and the other attempt is cancelled.
+     */
+    private <T> CompletableFuture<ResponseWrapper<T>> executeHedged(
+            Supplier<CompletableFuture<ResponseWrapper<T>>> request
+    ) {
+        final Hedger hedger = transport.hedger();
+        final CompletableFuture<ResponseWrapper<T>> result = new CompletableFuture<>();
+        final long start = System.nanoTime();
+        request.get().thenAccept(rw -> settle(result, rw, hedger, start));
+        delay(hedger.delayNanos(), TimeUnit.NANOSECONDS).thenRun(() -> {
+            if (!result.isDone()) {
+                final long hedgeStart = System.nanoTime();
+                request.get().thenAccept(rw -> settle(result, rw, hedger, hedgeStart));
+            }
+        });
+        // the loser is aborted along with everything else once the result is complete
+        return result;
+    }
+
+    private static <T> void settle(CompletableFuture<ResponseWrapper<T>> result, ResponseWrapper<T> rw,
+                                   Hedger hedger, long start) {
+        if (result.complete(rw) && !rw.hasException()) {
+            hedger.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Sends once, within a slot of the adaptive concurrency limiter if there is one.
+     * @throws TimeoutException if the deadline passes before a slot is free
+     */
+    private <R> HttpResponse<R> send(HttpRequest request, HttpResponse.BodyHandler<R> bodyHandler)
+            throws IOException, InterruptedException, TimeoutException {
+        final ConcurrencyLimiter limiter = transport.concurrencyLimiter();
+        if (limiter == null) {
+            return transport.send(request, bodyHandler);
+        }
+        if (!limiter.acquireBlocking(hasDeadline ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE)) {
+            throw new TimeoutException("Deadline exceeded while waiting for a concurrency slot");
+        }
+        final ConcurrencyLimiter.Slot slot = limiter.new Slot();
+        try {
+            return transport.send(request, slot.releasingOnHeaders(bodyHandler));
+        } catch (Exception e) {
+            slot.release(ConcurrencyLimiter.sampleOf(e));
+            throw e;
+        } finally {
+            slot.release(ConcurrencyLimiter.Sample.IGNORED);
+        }
+    }
+
+    private <R> CompletableFuture<HttpResponse<R>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<R> bodyHandler) {
+        final ConcurrencyLimiter limiter = transport.concurrencyLimiter();
+        if (limiter == null) {
+            return sendOrCancel(request, bodyHandler);
+        }
+        return limiter.acquire().thenCompose(ignore -> {
+            final ConcurrencyLimiter.Slot slot = limiter.new Slot();
+            return sendOrCancel(request, slot.releasingOnHeaders(bodyHandler))
+                    .whenComplete((response, throwable) -> slot.release(throwable == null
+                            ? ConcurrencyLimiter.Sample.IGNORED
+                            : ConcurrencyLimiter.sampleOf(throwable)));
+        });
+    }
+
+    /**
+     * Sends, keeping track of the attempts so they can be aborted, and not sending at all once
+     * the request has been aborted (e.g. a hedged request's loser was waiting to retry).
+     */
+    private <R> CompletableFuture<HttpResponse<R>> sendOrCancel(HttpRequest request,
+                                                               HttpResponse.BodyHandler<R> bodyHandler) {
+        if (aborted) {
+            return CompletableFuture.failedFuture(new CancellationException("The request has been aborted"));
+        }
+        final CompletableFuture<HttpResponse<R>> future = transport.sendAsync(request, bodyHandler);
+        sends.add(future);
+        if (aborted) {
+            future.cancel(true);
+        }
+        return future;
+    }
+
+    private static CompletableFuture<Void> delay(long duration, TimeUnit unit) {
+        return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(duration, unit));
+    }
+
+    /**
+     * @return how many nanoseconds to wait before sending, or -1 if the rate limit's max wait
+     * would be exceeded
+     */
+    private long reservePermit() {
+        return budget == null ? 0 : transport.rateLimiter().reserve(budget, budgetBucketId);
+    }
+
+    private <T> ResponseWrapper<T> rateLimitExceeded(int attempts) {
+        return new ResponseWrapper<>(null, null,
+                "Rate limit exceeded: no " + budget.name().toLowerCase() + " permit available"
+                        + (budgetBucketId == null ? "" : " for bucket " + budgetBucketId)
+                        + " within the max wait", attempts);
+    }
+
+    /**
+     * Only idempotent requests are retried, and only if their body can be sent again.
+     */
+    private boolean isRetryable() {
+        final boolean idempotentMethod = method != Methods.POST
+                || idempotent
+                || "true".equals(headers.get("x-upsert"));
+        return idempotentMethod && repeatableBody;
+    }
+
+    private static <T> ResponseWrapper<T> withAttempts(ResponseWrapper<T> rw, int attempts) {
+        return attempts == rw.attempts()
+                ? rw
+                : new ResponseWrapper<>(rw.body(), rw.errorResponse(), rw.exception(), attempts);
+    }
+
+    private static ResponseWrapper<byte[]> toResponseWrapper(HttpResponse<byte[]> response) {
+        if (response.statusCode() >= 400) {
+            return new ResponseWrapper<>(
+                    null,
+                    Mapper.toErrorResponse(response.body(), response.statusCode()),
+                    null);
+        }
+        return new ResponseWrapper<>(response.body(), null, null);
+    }
+
+    private static ResponseWrapper<String> toTextResponseWrapper(HttpResponse<byte[]> response) {
+        final ResponseWrapper<byte[]> rw = toResponseWrapper(response);
+        return new ResponseWrapper<>(
+                rw.body() == null ? null : new String(rw.body(), StandardCharsets.UTF_8),
+                rw.errorResponse(),
+                null);
+    }
+
+    private static <T> ResponseWrapper<T> fromOutcome(HttpResponse<Outcome<T>> response) {
+        Outcome<T> outcome = response.body();
+        if (response.statusCode() >= 400) {
+            return new ResponseWrapper<>(
+                    null,
+                    Mapper.toErrorResponse(outcome.error(), response.statusCode()),
+                    null);
+        }
+        return new ResponseWrapper<>(outcome.body(), null, null);
+    }
+
+    static <T> ResponseWrapper<T> toExceptionResponse(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return new ResponseWrapper<>(null, null, describe(cause));
+    }
+
+    /**
+     * @return the exception's message, or its type if it has none (the HttpClient throws some
+     * IOExceptions without one), so a failed request always reports an exception
+     */
+    private static String describe(Throwable throwable) {
+        return throwable.getMessage() != null ? throwable.getMessage() : throwable.toString();
+    }
+
+    private static <T> HttpResponse.BodyHandler<Outcome<T>> errorAware(HttpResponse.BodyHandler<T> bodyHandler) {
+        return responseInfo -> responseInfo.statusCode() >= 400
+                ? HttpResponse.BodySubscribers.mapping(
+                        HttpResponse.BodySubscribers.ofByteArray(),
+                        error -> new Outcome<>(null, error))
+                : HttpResponse.BodySubscribers.mapping(
+                        bodyHandler.apply(responseInfo),
+                        body -> new Outcome<>(body, null));
+    }
+
+    private static HttpResponse.BodyHandler<FileStream> fileStreamHandler() {
+        return responseInfo -> HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofInputStream(),
+                body -> new FileStream(responseInfo.statusCode(), responseInfo.headers().map(), body));
+    }
+
+    private HttpRequest buildRequest() {
         HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create(apiUrl + STORAGE_PATH + resource + _path));
+                .uri(uri());
         if (apiKey != null) {
             builder = builder.header("Authorization", "Bearer " + apiKey);
         }
         if (contentType != null) {
             builder = builder.header("Content-Type", contentType);
         }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            builder = builder.header(header.getKey(), header.getValue());
+        }
         builder = switch (method) {
             default -> builder.GET();
             case POST -> builder.POST(body);
             case PUT -> builder.PUT(body);
-            case DELETE -> builder.DELETE();
+            case DELETE -> body == null ? builder.DELETE() : builder.method("DELETE", body);
         };
+        final Duration timeout = attemptTimeout();
+        if (timeout != null) {
+            builder = builder.timeout(timeout);
+        }
+        return builder.build();
+    }
 
-        HttpRequest request = builder.build();
-        try {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() >= 400) {
-                return new ResponseWrapper<>(
-                        null,
-                        Mapper.toErrorResponse(response.body(), response.statusCode()),
-                        null);
+    /**
+     * @return how long to wait for the response headers: the transport's download or metadata
+     * timeout, cut short by the deadline; null for no limit. Uploads only have the deadline,
+     * because for them the wait includes sending the whole body.
+     */
+    private Duration attemptTimeout() {
+        final Timeouts timeouts = transport.timeouts();
+        Duration timeout;
+        if (timeouts == null || budget == RateLimiter.Budget.DATA && method != Methods.GET) {
+            timeout = null;
+        } else {
+            timeout = budget == RateLimiter.Budget.DATA ? timeouts.download() : timeouts.metadata();
+        }
+        if (hasDeadline) {
+            final Duration remaining = Duration.ofNanos(Math.max(1, deadlineNanos - System.nanoTime()));
+            if (timeout == null || remaining.compareTo(timeout) < 0) {
+                timeout = remaining;
             }
-            return new ResponseWrapper<>(response.body(), null, null);
-        } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
         }
+        return timeout;
     }
 
+    private URI uri() {
+        final String _path = path == null ? "" : "/" + path;
+        return URI.create(apiUrl + STORAGE_PATH + resource + _path);
+    }
+
+    private HttpRequest.BodyPublisher toBodyPublisher(Object body) {
+        // note: can't use enhanced switch with pattern matching in Java 17
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        } else if (body instanceof String sBody) {
+            return HttpRequest.BodyPublishers.ofString(sBody);
+        } else if (body instanceof byte[] baBody) {
+            return HttpRequest.BodyPublishers.ofByteArray(baBody);
+        } else if (body instanceof Path pBody) {
+            try {
+                return HttpRequest.BodyPublishers.ofFile(pBody);
+            } catch (FileNotFoundException e) {
+                throw new IllegalArgumentException("File not found: " + pBody, e);
+            }
+        } else if (body instanceof StreamBody sBody) {
+            repeatableBody = sBody.repeatable();
+            // ofInputStream reads the stream in small fixed-size chunks as the request is sent
+            HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.ofInputStream(sBody.streamSupplier());
+            return sBody.contentLength() < 0
+                    ? publisher
+                    : HttpRequest.BodyPublishers.fromPublisher(publisher, sBody.contentLength());
+        } else {
+            throw new IllegalArgumentException(
+                    method + " body can only be String, byte array, Path or StreamBody");
+        }
+    }
+
+    /**
+     * A request body that's streamed from an {@link InputStream}. The supplier is called
+     * once per attempt, so it should return a fresh stream each time it's called.
+     * @param contentLength the length in bytes if known, or a negative number if not
+     * @param repeatable whether the body can be sent more than once, i.e. retried
+     */
+    record StreamBody(Supplier<? extends InputStream> streamSupplier, long contentLength, boolean repeatable) {
+        StreamBody(Supplier<? extends InputStream> streamSupplier, long contentLength) {
+            this(streamSupplier, contentLength, true);
+        }
+
+        /**
+         * A body that can only be sent once, since the given stream can't be rewound.
+         */
+        static StreamBody once(InputStream stream, long contentLength) {
+            AtomicBoolean consumed = new AtomicBoolean();
+            return new StreamBody(() -> {
+                if (consumed.getAndSet(true)) {
+                    throw new IllegalStateException("The InputStream body has already been consumed");
+                }
+                return stream;
+            }, contentLength, false);
+        }
+    }
+
+    private record Outcome<T>(T body, byte[] error) {}
+
     private enum Methods {
         GET, POST, PUT, DELETE
     }
@@ -0,0 +1,66 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.RetryPolicy;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failures are transient and how long to wait before retrying them,
+ * as described in {@link RetryPolicy}.
+ */
+final class Retries {
+    private Retries() {}
+
+    /**
+     * Too many requests, and server errors other than 501 Not Implemented, which won't go away.
+     */
+    static boolean isRetryable(int statusCode) {
+        return statusCode == 429 || (statusCode >= 500 && statusCode != 501);
+    }
+
+    /**
+     * I/O errors, which include connection resets and refusals and timeouts
+     * ({@link java.net.http.HttpTimeoutException}). Anything else, like a closed client or an
+     * invalid request, would just fail again.
+     */
+    static boolean isRetryable(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * @param attempt the attempt that just failed, counting from 1
+     * @param headers the headers of the failed response, or null if there was no response
+     * @return how long to wait before the next attempt
+     */
+    static long backoffMillis(RetryPolicy policy, int attempt, HttpHeaders headers) {
+        final long max = policy.maxBackoff().toMillis();
+        final long retryAfter = retryAfterMillis(headers);
+        if (retryAfter >= 0) {
+            return Math.min(retryAfter, max);
+        }
+        long ceiling = Math.min(policy.initialBackoff().toMillis(), max);
+        for (int i = 1; i < attempt && ceiling < max; i++) {
+            ceiling = ceiling > max / 2 ? max : ceiling * 2;
+        }
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static long retryAfterMillis(HttpHeaders headers) {
+        if (headers == null) return -1;
+        try {
+            return headers.firstValue("Retry-After")
+                    .map(seconds -> Long.parseLong(seconds.trim()) * 1000)
+                    .orElse(-1L);
+        } catch (NumberFormatException e) {
+            // an HTTP date; not worth parsing, the jittered backoff will do
+            return -1;
+        }
+    }
+}
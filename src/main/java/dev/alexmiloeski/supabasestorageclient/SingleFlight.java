@@ -0,0 +1,61 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent identical calls: while a call for a key is in flight, further calls
+ * for the same key don't start their own, but get the result of the one in flight.
+ * Results are shared as they are, so they must be immutable, or the callers have to be
+ * given their own copies with {@link #run(String, Supplier, UnaryOperator)}.
+ */
+class SingleFlight {
+    private final ConcurrentHashMap<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Every caller gets its own copy of the shared future, so cancelling it only detaches
+     * that caller; the call goes on for the others.
+     */
+    <T> CompletableFuture<T> run(String key, Supplier<CompletableFuture<T>> call) {
+        return run(key, call, UnaryOperator.identity());
+    }
+
+    /**
+     * Same as {@link #run(String, Supplier)}, for mutable results: the callers that get the
+     * result of another one's call get it through {@code copy}, so no two callers share it.
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> run(String key, Supplier<CompletableFuture<T>> call, UnaryOperator<T> copy) {
+        final CompletableFuture<T> shared = new CompletableFuture<>();
+        final CompletableFuture<?> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.increment();
+            return ((CompletableFuture<T>) existing).thenApply(copy);
+        }
+        try {
+            call.get().whenComplete((result, throwable) -> {
+                inFlight.remove(key, shared);
+                if (throwable == null) {
+                    shared.complete(result);
+                } else {
+                    shared.completeExceptionally(throwable);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+        }
+        return shared.copy();
+    }
+
+    /**
+     * @return how many calls got the result of another one instead of being made
+     */
+    long coalesced() {
+        return coalesced.sum();
+    }
+}
@@ -1,26 +1,107 @@
 package dev.alexmiloeski.supabasestorageclient;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import dev.alexmiloeski.supabasestorageclient.RateLimiter.Budget;
 import dev.alexmiloeski.supabasestorageclient.model.Bucket;
+import dev.alexmiloeski.supabasestorageclient.model.CompactFileListing;
 import dev.alexmiloeski.supabasestorageclient.model.FileObject;
 import dev.alexmiloeski.supabasestorageclient.model.FileObjectInfo;
+import dev.alexmiloeski.supabasestorageclient.model.LazyFileObject;
+import dev.alexmiloeski.supabasestorageclient.model.StorageClientMetrics;
 import dev.alexmiloeski.supabasestorageclient.model.options.FileMoveOptions;
+import dev.alexmiloeski.supabasestorageclient.model.options.HedgingPolicy;
 import dev.alexmiloeski.supabasestorageclient.model.options.ListFilesOptions;
+import dev.alexmiloeski.supabasestorageclient.model.options.StorageClientOptions;
 import dev.alexmiloeski.supabasestorageclient.model.responses.ErrorResponse;
+import dev.alexmiloeski.supabasestorageclient.model.responses.FileDeleteResult;
 import dev.alexmiloeski.supabasestorageclient.model.responses.FileObjectIdentity;
+import dev.alexmiloeski.supabasestorageclient.model.responses.FileStream;
 import dev.alexmiloeski.supabasestorageclient.model.responses.ResponseWrapper;
+import dev.alexmiloeski.supabasestorageclient.model.responses.StorageClientException;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class StorageClient implements AutoCloseable {
+    /**
+     * The most object paths the server accepts in one bulk delete request.
+     */
+    public static final int DELETE_BATCH_SIZE = 1000;
+    public static final int DEFAULT_DELETE_CONCURRENCY = 4;
 
-public class StorageClient {
     protected final String apiUrl;
     protected final String apiKey;
+    final Transport transport;
+    private final Executor parsingExecutor;
 
     public StorageClient(String projectId, String apiKey) {
+        this(projectId, apiKey, StorageClientOptions.defaults());
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the options ask for virtual threads,
+     * but the runtime doesn't support them (Java 20 and earlier)
+     * @throws java.io.UncheckedIOException if the options ask for a disk cache, but its
+     * directory can't be created
+     */
+    public StorageClient(String projectId, String apiKey, StorageClientOptions options) {
         this.apiUrl = "https://" + projectId + ".supabase.co";
         this.apiKey = apiKey;
+        this.transport = Transport.create(options);
+        if (options.executor() != null) {
+            this.parsingExecutor = options.executor();
+        } else if (options.virtualThreads()) {
+            this.parsingExecutor = transport.executor();
+        } else {
+            this.parsingExecutor = ForkJoinPool.commonPool();
+        }
+    }
+
+    /**
+     * A view of this client that shares its connections and settings.
+     */
+    private StorageClient(StorageClient parent) {
+        this.apiUrl = parent.apiUrl;
+        this.apiKey = parent.apiKey;
+        this.transport = parent.transport;
+        this.parsingExecutor = parent.parsingExecutor;
+    }
+
+    /**
+     * Returns a view of this client whose requests all have to finish within the given
+     * duration from now, retries included. Use it to put one deadline on a whole operation,
+     * e.g. paging through a folder with {@link #streamFiles(String, String, int)}:
+     * <pre>
+     * storageClient.withDeadline(Duration.ofSeconds(5)).streamFiles("bucket", "folder", 100)
+     * </pre>
+     * Requests that would still be running at the deadline are aborted and return a
+     * {@link ResponseWrapper} with a "Deadline exceeded" exception, as do requests made after it.
+     * The view shares this client's connections, so closing the view doesn't close them.
+     */
+    public StorageClient withDeadline(Duration timeout) {
+        return new DeadlineView(this, System.nanoTime() + timeout.toNanos());
     }
 
     public String getApiUrl() {
@@ -32,25 +113,50 @@ public class StorageClient {
      * REST response body example: {"healthy":true}
      */
     public ResponseWrapper<Boolean> isHealthy() {
-        ResponseWrapper<String> rw = newRequest()
-                .path("health")
-                .make();
+        ResponseWrapper<byte[]> rw = newRequest()
+                .healthCheck()
+                .makeBytes();
+        return onHealthResponse(toHealthResponse(rw));
+    }
+
+    /**
+     * Async version of {@link #isHealthy()}.
+     */
+    public CompletableFuture<ResponseWrapper<Boolean>> isHealthyAsync() {
+        final CompletableFuture<ResponseWrapper<byte[]>> future = newRequest()
+                .healthCheck()
+                .makeBytesAsync();
+        return cancelling(future, future
+                .thenApplyAsync(rw -> onHealthResponse(toHealthResponse(rw)), parsingExecutor)
+                .exceptionally(RequestMaker::toExceptionResponse));
+    }
+
+    /**
+     * A healthy server closes the circuit breaker right away, without waiting for its own check.
+     */
+    private ResponseWrapper<Boolean> onHealthResponse(ResponseWrapper<Boolean> rw) {
+        if (Boolean.TRUE.equals(rw.body()) && transport.circuitBreaker() != null) {
+            transport.circuitBreaker().close();
+        }
+        return rw;
+    }
+
+    private static ResponseWrapper<Boolean> toHealthResponse(ResponseWrapper<byte[]> rw) {
         try {
             if (rw.body() != null) {
-                HashMap<String, Object> resMap = Mapper.mapper.readValue(rw.body(), new TypeReference<>() {});
-                Object healthyO = resMap.get("healthy");
+                Object healthyO = Mapper.toHealthyValue(rw.body());
                 if (healthyO instanceof Boolean healthy) {
-                    return new ResponseWrapper<>(healthy, null, null);
+                    return new ResponseWrapper<>(healthy, null, null, rw.attempts());
                 } else {
                     return new ResponseWrapper<>(null, new ErrorResponse("",
                             "healthy_not_boolean",
                             "The received value of 'healthy' was not a boolean; its value was: "
-                                    + healthyO), null);
+                                    + healthyO), null, rw.attempts());
                 }
             }
-            return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception());
+            return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception(), rw.attempts());
         } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
+            return new ResponseWrapper<>(null, null, e.getMessage(), rw.attempts());
         }
     }
 
@@ -83,18 +189,33 @@ public class StorageClient {
      * ]
      */
     public ResponseWrapper<List<Bucket>> listBuckets() {
-        ResponseWrapper<String> rw = newRequest()
+        final BucketCache cache = transport.bucketCache();
+        final List<Bucket> cached = cache == null ? null : cache.getAll();
+        if (cached != null) {
+            return new ResponseWrapper<>(cached, null, null, 0);
+        }
+        ResponseWrapper<byte[]> rw = newRequest()
                 .bucket()
-                .make();
-        try {
-            if (rw.body() != null) {
-                List<Bucket> buckets = Mapper.toBuckets(rw.body());
-                return new ResponseWrapper<>(buckets, null, null);
-            }
-            return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception());
-        } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
+                .limit(Budget.METADATA, null)
+                .makeBytes();
+        return rememberBuckets(mapBody(rw, Mapper::toBuckets));
+    }
+
+    /**
+     * Async version of {@link #listBuckets()}.
+     */
+    public CompletableFuture<ResponseWrapper<List<Bucket>>> listBucketsAsync() {
+        final BucketCache cache = transport.bucketCache();
+        final List<Bucket> cached = cache == null ? null : cache.getAll();
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new ResponseWrapper<>(cached, null, null, 0));
         }
+        final CompletableFuture<ResponseWrapper<List<Bucket>>> future = mapBodyAsync(newRequest()
+                .bucket()
+                .limit(Budget.METADATA, null)
+                .makeBytesAsync(), Mapper::toBuckets);
+        future.thenAccept(this::rememberBuckets);
+        return future;
     }
 
     /**
@@ -112,19 +233,77 @@ public class StorageClient {
      * }
      */
     public ResponseWrapper<Bucket> getBucket(final String bucketId) {
-        try {
-            ResponseWrapper<String> rw = newRequest()
-                    .bucket()
-                    .path(bucketId)
-                    .make();
-            if (rw.body() != null) {
-                Bucket bucket = Mapper.toBucket(rw.body());
-                return new ResponseWrapper<>(bucket, null, null);
-            }
-            return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception());
-        } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
+        final Bucket cached = cachedBucket(bucketId);
+        if (cached != null) {
+            return new ResponseWrapper<>(cached, null, null, 0);
+        }
+        ResponseWrapper<byte[]> rw = newRequest()
+                .bucket()
+                .limit(Budget.METADATA, bucketId)
+                .path(bucketId)
+                .makeBytes();
+        return rememberBucket(bucketId, mapBody(rw, Mapper::toBucket));
+    }
+
+    /**
+     * Async version of {@link #getBucket(String)}.
+     */
+    public CompletableFuture<ResponseWrapper<Bucket>> getBucketAsync(final String bucketId) {
+        final Bucket cached = cachedBucket(bucketId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new ResponseWrapper<>(cached, null, null, 0));
+        }
+        final CompletableFuture<ResponseWrapper<Bucket>> future = mapBodyAsync(newRequest()
+                .bucket()
+                .limit(Budget.METADATA, bucketId)
+                .path(bucketId)
+                .makeBytesAsync(), Mapper::toBucket);
+        future.thenAccept(rw -> rememberBucket(bucketId, rw));
+        return future;
+    }
+
+    /**
+     * @return the bucket's cached metadata, or null if there's none (or no cache)
+     */
+    private Bucket cachedBucket(final String bucketId) {
+        final BucketCache cache = transport.bucketCache();
+        return cache == null ? null : cache.get(bucketId);
+    }
+
+    private ResponseWrapper<Bucket> rememberBucket(final String bucketId, ResponseWrapper<Bucket> rw) {
+        final BucketCache cache = transport.bucketCache();
+        if (cache != null && rw.hasBody()) {
+            cache.put(bucketId, rw.body());
+        }
+        return rw;
+    }
+
+    private ResponseWrapper<List<Bucket>> rememberBuckets(ResponseWrapper<List<Bucket>> rw) {
+        final BucketCache cache = transport.bucketCache();
+        if (cache != null && rw.hasBody()) {
+            cache.putAll(rw.body());
         }
+        return rw;
+    }
+
+    /**
+     * Drops the bucket's cached metadata; called both before and after changing the bucket,
+     * so that a read racing with the change can't leave the old metadata behind.
+     */
+    private void forgetBucket(final String bucketId) {
+        final BucketCache cache = transport.bucketCache();
+        if (cache != null) {
+            cache.invalidate(bucketId);
+        }
+    }
+
+    /**
+     * Runs {@link #forgetBucket(String)} once the future completes, without making it a new
+     * stage, so that cancelling the returned future still aborts the request.
+     */
+    private <T> CompletableFuture<T> forgettingBucket(final String bucketId, CompletableFuture<T> future) {
+        future.whenComplete((result, throwable) -> forgetBucket(bucketId));
+        return future;
     }
 
     /**
@@ -144,46 +323,71 @@ public class StorageClient {
      */
     public ResponseWrapper<String> createBucket(String id, String name, boolean isPublic,
                                                 Integer fileSizeLimit, List<String> allowedMimeTypes) {
-        // POST url/storage/v1/bucket
-        Bucket newBucket = new Bucket(
-                id, name, null, isPublic, fileSizeLimit, allowedMimeTypes, null, null);
-        String json;
         try {
-            json = Mapper.mapper.writeValueAsString(newBucket);
-            ResponseWrapper<String> rw = newRequest()
-                    .bucket()
-                    .post(json)
-                    .jsonContent()
-                    .make();
-            if (rw.body() != null) {
-                Bucket bucket = Mapper.toBucket(rw.body());
-                return new ResponseWrapper<>(bucket.name(), null, null);
-            }
-            return rw;
+            ResponseWrapper<byte[]> rw = createBucketRequest(id, name, isPublic, fileSizeLimit, allowedMimeTypes)
+                    .makeBytes();
+            forgetBucket(id);
+            return mapBody(rw, json -> Mapper.toBucket(json).name());
         } catch (Exception e) {
             return new ResponseWrapper<>(null, null, e.getMessage());
         }
     }
 
+    /**
+     * Async version of {@link #createBucket(String, String, boolean, Integer, List)}.
+     */
+    public CompletableFuture<ResponseWrapper<String>> createBucketAsync(
+            String id, String name, boolean isPublic, Integer fileSizeLimit, List<String> allowedMimeTypes
+    ) {
+        try {
+            return forgettingBucket(id, mapBodyAsync(createBucketRequest(id, name, isPublic, fileSizeLimit,
+                    allowedMimeTypes).makeBytesAsync(), json -> Mapper.toBucket(json).name()));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(new ResponseWrapper<>(null, null, e.getMessage()));
+        }
+    }
+
+    private RequestMaker createBucketRequest(String id, String name, boolean isPublic,
+                                             Integer fileSizeLimit, List<String> allowedMimeTypes) {
+        // POST url/storage/v1/bucket
+        Bucket newBucket = new Bucket(
+                id, name, null, isPublic, fileSizeLimit, allowedMimeTypes, null, null);
+        final byte[] json = Mapper.toJsonBytes(newBucket);
+        forgetBucket(id);
+        return newRequest()
+                .bucket()
+                .limit(Budget.METADATA, id)
+                .post(json)
+                .jsonContent();
+    }
+
     /**
      * REST DELETE url/storage/v1/bucket/some-bucket
      * REST response body example: {"message":"Successfully deleted"}
      */
     public ResponseWrapper<String> deleteBucket(String id) {
-        ResponseWrapper<String> rw = newRequest()
+        forgetBucket(id);
+        ResponseWrapper<byte[]> rw = newRequest()
                 .bucket()
+                .limit(Budget.METADATA, id)
                 .delete()
                 .path(id)
-                .make();
-        try {
-            if (rw.body() != null) {
-                HashMap<String, String> resMap = Mapper.mapper.readValue(rw.body(), new TypeReference<>() {});
-                return new ResponseWrapper<>(resMap.get("message"), null, null);
-            }
-            return rw;
-        } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
-        }
+                .makeBytes();
+        forgetBucket(id);
+        return mapBody(rw, Mapper::toMessage);
+    }
+
+    /**
+     * Async version of {@link #deleteBucket(String)}.
+     */
+    public CompletableFuture<ResponseWrapper<String>> deleteBucketAsync(String id) {
+        forgetBucket(id);
+        return forgettingBucket(id, mapBodyAsync(newRequest()
+                .bucket()
+                .limit(Budget.METADATA, id)
+                .delete()
+                .path(id)
+                .makeBytesAsync(), Mapper::toMessage));
     }
 
     /**
@@ -191,20 +395,25 @@ public class StorageClient {
      * REST response body example: {"message":"Successfully emptied"}
      */
     public ResponseWrapper<String> emptyBucket(String id) {
-        ResponseWrapper<String> rw = newRequest()
+        ResponseWrapper<byte[]> rw = newRequest()
                 .bucket()
+                .limit(Budget.METADATA, id)
                 .post()
                 .path(id + "/empty")
-                .make();
-        try {
-            if (rw.body() != null) {
-                HashMap<String, String> resMap = Mapper.mapper.readValue(rw.body(), new TypeReference<>() {});
-                return new ResponseWrapper<>(resMap.get("message"), null, null);
-            }
-            return rw;
-        } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
-        }
+                .makeBytes();
+        return mapBody(rw, Mapper::toMessage);
+    }
+
+    /**
+     * Async version of {@link #emptyBucket(String)}.
+     */
+    public CompletableFuture<ResponseWrapper<String>> emptyBucketAsync(String id) {
+        return mapBodyAsync(newRequest()
+                .bucket()
+                .limit(Budget.METADATA, id)
+                .post()
+                .path(id + "/empty")
+                .makeBytesAsync(), Mapper::toMessage);
     }
 
     /**
@@ -222,29 +431,45 @@ public class StorageClient {
     public ResponseWrapper<String> updateBucket(
             String id, String owner, boolean isPublic, Integer fileSizeLimit, List<String> allowedMimeTypes
     ) {
-        Bucket newBucket = new Bucket(
-                null, null, owner, isPublic, fileSizeLimit, allowedMimeTypes, null, null);
-        String json;
+        RequestMaker requestMaker;
         try {
-            json = Mapper.mapper.writeValueAsString(newBucket);
-        } catch (JsonProcessingException e) {
+            requestMaker = updateBucketRequest(id, owner, isPublic, fileSizeLimit, allowedMimeTypes);
+        } catch (Exception e) {
             return new ResponseWrapper<>(null, null, e.getMessage());
         }
-        ResponseWrapper<String> rw = newRequest()
-                .bucket()
-                .put(json)
-                .jsonContent()
-                .path(id)
-                .make();
+        final ResponseWrapper<byte[]> rw = requestMaker.makeBytes();
+        forgetBucket(id);
+        return mapBody(rw, Mapper::toMessage);
+    }
+
+    /**
+     * Async version of {@link #updateBucket(String, String, boolean, Integer, List)}.
+     */
+    public CompletableFuture<ResponseWrapper<String>> updateBucketAsync(
+            String id, String owner, boolean isPublic, Integer fileSizeLimit, List<String> allowedMimeTypes
+    ) {
+        RequestMaker requestMaker;
         try {
-            if (rw.body() != null) {
-                HashMap<String, String> resMap = Mapper.mapper.readValue(rw.body(), new TypeReference<>() {});
-                return new ResponseWrapper<>(resMap.get("message"), null, null);
-            }
-            return rw;
+            requestMaker = updateBucketRequest(id, owner, isPublic, fileSizeLimit, allowedMimeTypes);
         } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
+            return CompletableFuture.completedFuture(new ResponseWrapper<>(null, null, e.getMessage()));
         }
+        return forgettingBucket(id, mapBodyAsync(requestMaker.makeBytesAsync(), Mapper::toMessage));
+    }
+
+    private RequestMaker updateBucketRequest(
+            String id, String owner, boolean isPublic, Integer fileSizeLimit, List<String> allowedMimeTypes
+    ) {
+        Bucket newBucket = new Bucket(
+                null, null, owner, isPublic, fileSizeLimit, allowedMimeTypes, null, null);
+        final byte[] json = Mapper.toJsonBytes(newBucket);
+        forgetBucket(id);
+        return newRequest()
+                .bucket()
+                .limit(Budget.METADATA, id)
+                .put(json)
+                .jsonContent()
+                .path(id);
     }
 
     /**
@@ -299,6 +524,71 @@ public class StorageClient {
      * ]</pre>
      */
     public ResponseWrapper<List<FileObject>> listFilesInBucket(final String bucketId, final ListFilesOptions options) {
+        ResponseWrapper<byte[]> rw = listFilesRequest(bucketId, options).makeBytes();
+        return mapBody(rw, Mapper::toObjects);
+    }
+
+    /**
+     * Async version of {@link #listFilesInBucket(String, ListFilesOptions)}.
+     */
+    public CompletableFuture<ResponseWrapper<List<FileObject>>> listFilesInBucketAsync(
+            final String bucketId, final ListFilesOptions options
+    ) {
+        return mapBodyAsync(listFilesRequest(bucketId, options).makeBytesAsync(), Mapper::toObjects);
+    }
+
+    /**
+     * Same as {@link #listFilesInBucket(String, ListFilesOptions)}, but the entries aren't
+     * decoded up front: each one is a {@link LazyFileObject} that keeps its slice of the
+     * response and decodes a field only when it's read. Meant for scans that look at a few
+     * fields (say, the name and size) of every entry.
+     */
+    public ResponseWrapper<List<LazyFileObject>> listFilesInBucketLazily(
+            final String bucketId, final ListFilesOptions options
+    ) {
+        return mapBody(listFilesRequest(bucketId, options).makeBytes(), Mapper::toLazyObjects);
+    }
+
+    /**
+     * Async version of {@link #listFilesInBucketLazily(String, ListFilesOptions)}.
+     */
+    public CompletableFuture<ResponseWrapper<List<LazyFileObject>>> listFilesInBucketLazilyAsync(
+            final String bucketId, final ListFilesOptions options
+    ) {
+        return mapBodyAsync(listFilesRequest(bucketId, options).makeBytesAsync(), Mapper::toLazyObjects);
+    }
+
+    /**
+     * Same as {@link #listFilesInBucket(String, ListFilesOptions)}, but the listing isn't
+     * collected into a list: the response is parsed while it's still arriving, and each entry
+     * is passed to the consumer as soon as it's read. The first entries can be processed before
+     * the rest has been downloaded, and memory use stays the same however large the limit is.
+     * <br>If the consumer throws, the rest of the response is discarded and the exception is
+     * returned in the {@link ResponseWrapper}.
+     * @param consumer called on the calling thread, once per entry, in the order of the listing
+     * @return the number of entries passed to the consumer
+     */
+    public ResponseWrapper<Integer> listFilesInBucket(
+            final String bucketId, final ListFilesOptions options, final Consumer<? super FileObject> consumer
+    ) {
+        return mapBody(listFilesRequest(bucketId, options).makeStream(),
+                fileStream -> Mapper.forEachObject(fileStream.body(), consumer));
+    }
+
+    /**
+     * Async version of {@link #listFilesInBucket(String, ListFilesOptions, Consumer)}. The
+     * consumer is called on a thread of the client's own, starting as soon as the response
+     * headers arrive; not on a custom executor, because reading the response blocks until
+     * the HTTP client, which runs on that executor, delivers the rest of it.
+     */
+    public CompletableFuture<ResponseWrapper<Integer>> listFilesInBucketAsync(
+            final String bucketId, final ListFilesOptions options, final Consumer<? super FileObject> consumer
+    ) {
+        return mapBodyAsync(listFilesRequest(bucketId, options).makeStreamAsync(),
+                fileStream -> Mapper.forEachObject(fileStream.body(), consumer), transport.blockingExecutor());
+    }
+
+    private RequestMaker listFilesRequest(final String bucketId, final ListFilesOptions options) {
         int limit = 100;
         int offset = 0;
         String folderId = "";
@@ -307,23 +597,23 @@ public class StorageClient {
             if (options.offset() != null) offset = options.offset();
             if (options.folderId() != null) folderId = options.folderId();
         }
-        ResponseWrapper<String> rw = newRequest()
+        return newRequest()
                 .object()
+                .limit(Budget.METADATA, bucketId)
                 .path("list/" + bucketId)
-                .post("""
-                        {"limit":%d,"offset":%d,"sortBy":{"column":"name","order":"asc"},"prefix":"%s"}"""
-                        .formatted(limit, offset, folderId))
+                .post(Mapper.toJsonBytes(new ListFilesBody(limit, offset, SortBy.BY_NAME, folderId)))
                 .jsonContent()
-                .make();
-        try {
-            if (rw.body() != null) {
-                List<FileObject> objects = Mapper.toObjects(rw.body());
-                return new ResponseWrapper<>(objects, null, null);
-            }
-            return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception());
-        } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
-        }
+                .idempotent();
+    }
+
+    /**
+     * REST request body example:
+     * {"limit":100,"offset":0,"sortBy":{"column":"name","order":"asc"},"prefix":"folder"}
+     */
+    record ListFilesBody(int limit, int offset, SortBy sortBy, String prefix) {}
+
+    record SortBy(String column, String order) {
+        static final SortBy BY_NAME = new SortBy("name", "asc");
     }
 
     /**
@@ -337,6 +627,74 @@ public class StorageClient {
         return listFilesInBucket(bucketId, null);
     }
 
+    /**
+     * Lists all files (and folders) under the prefix lazily, fetching one page of the given
+     * size at a time, as the stream is consumed. While a page is being consumed, the next one
+     * is already being fetched in the background.
+     * <br><br>If fetching a page fails, the stream throws a {@link StorageClientException}.
+     * Close the stream if it's abandoned before it's fully consumed, so the prefetched page
+     * is dropped.
+     * @param prefix the folder prefix; null or empty for the bucket's root
+     * @param pageSize how many entries to fetch per request
+     */
+    public Stream<FileObject> streamFiles(final String bucketId, final String prefix, final int pageSize) {
+        PagedFileIterator iterator = new PagedFileIterator(this, bucketId, prefix, pageSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Lists all files (and folders) under the prefix into a {@link CompactFileListing}, which
+     * holds them in a fraction of the memory a list of {@link FileObject}s would take. Meant
+     * for inventories of millions of files. The pages are fetched one after another, and each
+     * entry is added to the listing as soon as it's parsed, so no page is ever held as a list.
+     * <br><br>If fetching a page fails, its error is returned and the entries read so far are
+     * dropped.
+     * @param prefix the folder prefix; null or empty for the bucket's root
+     * @param pageSize how many entries to fetch per request
+     * @return the listing, with the attempts of all the requests added up
+     */
+    public ResponseWrapper<CompactFileListing> listFilesCompact(
+            final String bucketId, final String prefix, final int pageSize
+    ) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("The page size must be positive");
+        }
+        final CompactFileListing listing = new CompactFileListing();
+        int attempts = 0;
+        for (int offset = 0; ; offset += pageSize) {
+            final ResponseWrapper<Integer> rw = listFilesInBucket(
+                    bucketId, new ListFilesOptions(prefix, offset, pageSize), listing::add);
+            attempts += rw.attempts();
+            if (!rw.hasBody()) {
+                return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception(), attempts);
+            }
+            if (rw.body() < pageSize) {
+                listing.trimToSize();
+                return new ResponseWrapper<>(listing, null, null, attempts);
+            }
+        }
+    }
+
+    /**
+     * Lists all files under the prefix, including those in sub-folders at any depth.
+     * Folders are listed concurrently, with at most {@code parallelism} list requests in
+     * flight at a time. The returned files have their full paths (relative to the bucket) as
+     * names, and they come in no particular order. Folders themselves aren't included.
+     * <br><br>If any list request fails, the stream throws a {@link StorageClientException}.
+     * Close the stream if it's abandoned before it's fully consumed, so no more requests are made.
+     * @param prefix the folder to start from; null or empty for the bucket's root
+     * @param pageSize how many entries to fetch per request
+     * @param parallelism the maximum number of list requests in flight
+     */
+    public Stream<FileObject> walkFiles(final String bucketId, final String prefix,
+                                        final int pageSize, final int parallelism) {
+        FolderWalker walker = new FolderWalker(this, bucketId, prefix, pageSize, parallelism);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(walker, Spliterator.NONNULL), false)
+                .onClose(walker::close);
+    }
+
     /**
      * Get file info only, without the file's payload.
      * <pre>
@@ -357,23 +715,34 @@ public class StorageClient {
     public ResponseWrapper<FileObjectInfo> getFileInfo(
             final String bucketId, final String fileName
     ) {
-        ResponseWrapper<String> rw = newRequest()
+        ResponseWrapper<byte[]> rw = newRequest()
                 .object()
+                .limit(Budget.METADATA, bucketId)
                 .path("/info/authenticated/%s/%s".formatted(bucketId, fileName))
-                .make();
-        try {
-            if (rw.body() != null) {
-                FileObjectInfo objectInfo = Mapper.toObjectInfo(rw.body());
-                return new ResponseWrapper<>(objectInfo, null, null);
-            }
-            return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception());
-        } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
-        }
+                .hedged()
+                .coalesced()
+                .makeBytes();
+        return mapBody(rw, Mapper::toObjectInfo);
+    }
+
+    /**
+     * Async version of {@link #getFileInfo(String, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectInfo>> getFileInfoAsync(
+            final String bucketId, final String fileName
+    ) {
+        return mapBodyAsync(newRequest()
+                .object()
+                .limit(Budget.METADATA, bucketId)
+                .path("/info/authenticated/%s/%s".formatted(bucketId, fileName))
+                .hedged()
+                .coalesced()
+                .makeBytesAsync(), Mapper::toObjectInfo);
     }
 
     /**
-     * REST GET url/storage/v1/object/test-bucket-id/some-file-name
+     * Downloads the file as a String; with a {@link HedgingPolicy} set, a slow download is hedged.
+     * <br>REST GET url/storage/v1/object/test-bucket-id/some-file-name
      * REST error response body for wrong file name:
      * {
      *     "statusCode": "404",
@@ -388,43 +757,163 @@ public class StorageClient {
      * }
      */
     public ResponseWrapper<String> downloadFile(final String bucketId, final String fileName) {
-        return newRequest()
-                .object()
-                .path(bucketId + "/" + fileName)
+        final DownloadCache cache = transport.downloadCache();
+        if (cache != null) {
+            return mapBody(cache.fetch(() -> downloadRequest(bucketId, fileName), bucketId + "/" + fileName),
+                    bytes -> new String(bytes, StandardCharsets.UTF_8));
+        }
+        return downloadRequest(bucketId, fileName)
                 .make();
     }
 
+    /**
+     * Async version of {@link #downloadFile(String, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<String>> downloadFileAsync(final String bucketId, final String fileName) {
+        final DownloadCache cache = transport.downloadCache();
+        if (cache != null) {
+            return mapBodyAsync(cache.fetchAsync(() -> downloadRequest(bucketId, fileName), bucketId + "/" + fileName),
+                    bytes -> new String(bytes, StandardCharsets.UTF_8));
+        }
+        return downloadRequest(bucketId, fileName)
+                .makeAsync();
+    }
+
     public ResponseWrapper<byte[]> downloadFileBytes(final String bucketId, final String fileName) {
-        ResponseWrapper<String> rw = downloadFile(bucketId, fileName);
-        if (rw.hasBody()) {
-            return new ResponseWrapper<>(rw.body().getBytes(), null, null);
+        final DownloadCache cache = transport.downloadCache();
+        if (cache != null) {
+            // the cached array must not be handed out
+            return mapBody(cache.fetch(() -> downloadRequest(bucketId, fileName), bucketId + "/" + fileName),
+                    byte[]::clone);
         }
-        return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception());
+        return downloadRequest(bucketId, fileName)
+                .makeBytes();
     }
 
     /**
-     * REST POST url/storage/v1/object/test-bucket-id/some-file-name
-     * REST response body example:
-     * {"Key":"test-bucket-id/some-file-name","Id":"f1c8e70a-95f8-47df-9122-d3f152f95f70"}
-     * REST error response body for duplicate file name:
-     * {
-     *     "statusCode": "409",
-     *     "error": "Duplicate",
-     *     "message": "The resource already exists"
-     * }
-     * REST error response body example for wrong bucket id:
-     * {
-     *     "statusCode": "404",
-     *     "error": "Bucket not found",
-     *     "message": "Bucket not found"
-     * }
-     * REST error response body example for file too big:
-     {
-     *     "statusCode": "413",
-     *     "error": "Payload too large",
-     *     "message": "The object exceeded the maximum allowed size"
-     * }
-     * REST error response body example for invalid mime type:
+     * Async version of {@link #downloadFileBytes(String, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<byte[]>> downloadFileBytesAsync(
+            final String bucketId, final String fileName
+    ) {
+        final DownloadCache cache = transport.downloadCache();
+        if (cache != null) {
+            return mapBodyAsync(cache.fetchAsync(() -> downloadRequest(bucketId, fileName), bucketId + "/" + fileName),
+                    byte[]::clone);
+        }
+        return downloadRequest(bucketId, fileName)
+                .makeBytesAsync();
+    }
+
+    private RequestMaker downloadRequest(final String bucketId, final String fileName) {
+        return newRequest()
+                .object()
+                .limit(Budget.DATA, bucketId)
+                .path(bucketId + "/" + fileName)
+                .hedged()
+                .coalesced();
+    }
+
+    /**
+     * Same as {@link #downloadFile(String, String)}, but the file's payload isn't read into
+     * memory; it's returned as an unread {@link java.io.InputStream} along with the response's
+     * status code and headers. The bytes are passed through as they are, so it's safe for
+     * binary files of any size.
+     * <br><br>The returned {@link FileStream} must be closed once it's no longer needed.
+     * <pre>
+     * REST GET url/storage/v1/object/test-bucket-id/some-file-name</pre>
+     */
+    public ResponseWrapper<FileStream> downloadStream(final String bucketId, final String fileName) {
+        return newRequest()
+                .object()
+                .limit(Budget.DATA, bucketId)
+                .path(bucketId + "/" + fileName)
+                .makeStream();
+    }
+
+    /**
+     * Async version of {@link #downloadStream(String, String)}. The future completes as soon
+     * as the response headers arrive; the body is then read from the returned stream.
+     */
+    public CompletableFuture<ResponseWrapper<FileStream>> downloadStreamAsync(
+            final String bucketId, final String fileName
+    ) {
+        return newRequest()
+                .object()
+                .limit(Budget.DATA, bucketId)
+                .path(bucketId + "/" + fileName)
+                .makeStreamAsync();
+    }
+
+    /**
+     * Downloads the file straight to disk, without holding its payload in memory.
+     * The body is first written to a temporary file next to the target, which is then moved
+     * into place atomically (when the file system supports it), replacing any existing file.
+     * If the download fails, the target is left as it was.
+     * <pre>
+     * REST GET url/storage/v1/object/test-bucket-id/some-file-name</pre>
+     * @return the target path if the download succeeded
+     */
+    public ResponseWrapper<Path> downloadToFile(final String bucketId, final String fileName, final Path target) {
+        Path tempFile;
+        try {
+            tempFile = createTempFileFor(target);
+        } catch (Exception e) {
+            return new ResponseWrapper<>(null, null, e.getMessage());
+        }
+        ResponseWrapper<Path> rw = newRequest()
+                .object()
+                .limit(Budget.DATA, bucketId)
+                .path(bucketId + "/" + fileName)
+                .makeToFile(tempFile);
+        return moveIntoPlace(rw, tempFile, target);
+    }
+
+    /**
+     * Async version of {@link #downloadToFile(String, String, Path)}.
+     */
+    public CompletableFuture<ResponseWrapper<Path>> downloadToFileAsync(
+            final String bucketId, final String fileName, final Path target
+    ) {
+        Path tempFile;
+        try {
+            tempFile = createTempFileFor(target);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(new ResponseWrapper<>(null, null, e.getMessage()));
+        }
+        final CompletableFuture<ResponseWrapper<Path>> future = newRequest()
+                .object()
+                .limit(Budget.DATA, bucketId)
+                .path(bucketId + "/" + fileName)
+                .makeToFileAsync(tempFile);
+        return cancelling(future, future
+                .thenApplyAsync(rw -> moveIntoPlace(rw, tempFile, target), parsingExecutor)
+                .exceptionally(RequestMaker::toExceptionResponse));
+    }
+
+    /**
+     * REST POST url/storage/v1/object/test-bucket-id/some-file-name
+     * REST response body example:
+     * {"Key":"test-bucket-id/some-file-name","Id":"f1c8e70a-95f8-47df-9122-d3f152f95f70"}
+     * REST error response body for duplicate file name:
+     * {
+     *     "statusCode": "409",
+     *     "error": "Duplicate",
+     *     "message": "The resource already exists"
+     * }
+     * REST error response body example for wrong bucket id:
+     * {
+     *     "statusCode": "404",
+     *     "error": "Bucket not found",
+     *     "message": "Bucket not found"
+     * }
+     * REST error response body example for file too big:
+     {
+     *     "statusCode": "413",
+     *     "error": "Payload too large",
+     *     "message": "The object exceeded the maximum allowed size"
+     * }
+     * REST error response body example for invalid mime type:
      * {
      *     "statusCode": "415",
      *     "error": "invalid_mime_type",
@@ -434,21 +923,7 @@ public class StorageClient {
     public ResponseWrapper<FileObjectIdentity> uploadFile(
             final String bucketId, final String fileName, byte[] bytes, String mimeType
     ) {
-        ResponseWrapper<String> rw = newRequest()
-                .object()
-                .path(bucketId + "/" + fileName)
-                .post(bytes)
-                .contentType(mimeType)
-                .make();
-        try {
-            if (rw.body() != null) {
-                FileObjectIdentity identity = Mapper.toIdentity(rw.body());
-                return new ResponseWrapper<>(identity, null, null);
-            }
-            return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception());
-        } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
-        }
+        return sendFile(bucketId, fileName, bytes, mimeType, WriteMode.UPLOAD);
     }
 
     public ResponseWrapper<FileObjectIdentity> uploadFile(
@@ -457,6 +932,190 @@ public class StorageClient {
         return uploadFile(bucketId, fileName, bytes, "text/plain");
     }
 
+    /**
+     * Same as {@link #uploadFile(String, String, byte[], String)}, but the file is streamed
+     * from disk as it's being sent, instead of being loaded into memory first.
+     */
+    public ResponseWrapper<FileObjectIdentity> uploadFile(
+            final String bucketId, final String fileName, Path file, String mimeType
+    ) {
+        return sendFile(bucketId, fileName, file, mimeType, WriteMode.UPLOAD);
+    }
+
+    /**
+     * Same as {@link #uploadFile(String, String, byte[], String)}, but the payload is streamed
+     * from the given {@link InputStream} as it's being sent. The stream isn't closed.
+     * <br><br>Since a stream can only be read once, the upload can't be retried; if that's
+     * needed, use {@link #uploadFile(String, String, Supplier, long, String)} instead.
+     * @param contentLength the number of bytes the stream will provide, or -1 if unknown
+     */
+    public ResponseWrapper<FileObjectIdentity> uploadFile(
+            final String bucketId, final String fileName, InputStream stream, long contentLength, String mimeType
+    ) {
+        return sendFile(bucketId, fileName, RequestMaker.StreamBody.once(stream, contentLength), mimeType, WriteMode.UPLOAD);
+    }
+
+    /**
+     * Same as {@link #uploadFile(String, String, InputStream, long, String)}, but the stream
+     * is obtained from the supplier, which is called once per attempt and so it should
+     * return a fresh stream every time.
+     * @param contentLength the number of bytes each stream will provide, or -1 if unknown
+     */
+    public ResponseWrapper<FileObjectIdentity> uploadFile(
+            final String bucketId, final String fileName, Supplier<? extends InputStream> streamSupplier,
+            long contentLength, String mimeType
+    ) {
+        return sendFile(bucketId, fileName,
+                new RequestMaker.StreamBody(streamSupplier, contentLength), mimeType, WriteMode.UPLOAD);
+    }
+
+    /**
+     * Async version of {@link #uploadFile(String, String, byte[], String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> uploadFileAsync(
+            final String bucketId, final String fileName, byte[] bytes, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName, bytes, mimeType, WriteMode.UPLOAD);
+    }
+
+    /**
+     * Async version of {@link #uploadFile(String, String, Path, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> uploadFileAsync(
+            final String bucketId, final String fileName, Path file, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName, file, mimeType, WriteMode.UPLOAD);
+    }
+
+    /**
+     * Async version of {@link #uploadFile(String, String, InputStream, long, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> uploadFileAsync(
+            final String bucketId, final String fileName, InputStream stream, long contentLength, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName,
+                RequestMaker.StreamBody.once(stream, contentLength), mimeType, WriteMode.UPLOAD);
+    }
+
+    /**
+     * Async version of {@link #uploadFile(String, String, Supplier, long, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> uploadFileAsync(
+            final String bucketId, final String fileName, Supplier<? extends InputStream> streamSupplier,
+            long contentLength, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName,
+                new RequestMaker.StreamBody(streamSupplier, contentLength), mimeType, WriteMode.UPLOAD);
+    }
+
+    /**
+     * Same as {@link #uploadFile(String, String, byte[], String)}, but with {@code upsert} set,
+     * an existing file with the same name is overwritten instead of the server responding
+     * with a 409 "Duplicate" error.
+     */
+    public ResponseWrapper<FileObjectIdentity> uploadFile(
+            final String bucketId, final String fileName, byte[] bytes, String mimeType, boolean upsert
+    ) {
+        return sendFile(bucketId, fileName, bytes, mimeType, upsert ? WriteMode.UPSERT : WriteMode.UPLOAD);
+    }
+
+    /**
+     * Async version of {@link #uploadFile(String, String, byte[], String, boolean)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> uploadFileAsync(
+            final String bucketId, final String fileName, byte[] bytes, String mimeType, boolean upsert
+    ) {
+        return sendFileAsync(bucketId, fileName, bytes, mimeType, upsert ? WriteMode.UPSERT : WriteMode.UPLOAD);
+    }
+
+    /**
+     * Creates the file, or overwrites it if it already exists, in one request.
+     * Putting the same contents twice leaves the bucket in the same state, so it's safe to repeat.
+     * <br>REST POST url/storage/v1/object/test-bucket-id/some-file-name, with the header
+     * x-upsert: true
+     * <br>The response and error bodies are the same as for
+     * {@link #uploadFile(String, String, byte[], String)}, except there's no 409 "Duplicate".
+     */
+    public ResponseWrapper<FileObjectIdentity> putFile(
+            final String bucketId, final String fileName, byte[] bytes, String mimeType
+    ) {
+        return sendFile(bucketId, fileName, bytes, mimeType, WriteMode.UPSERT);
+    }
+
+    /**
+     * Same as {@link #putFile(String, String, byte[], String)}, but the file is streamed
+     * from disk as it's being sent.
+     */
+    public ResponseWrapper<FileObjectIdentity> putFile(
+            final String bucketId, final String fileName, Path file, String mimeType
+    ) {
+        return sendFile(bucketId, fileName, file, mimeType, WriteMode.UPSERT);
+    }
+
+    /**
+     * Same as {@link #putFile(String, String, byte[], String)}, but the payload is streamed
+     * from the given {@link InputStream}, which isn't closed.
+     * @param contentLength the number of bytes the stream will provide, or -1 if unknown
+     */
+    public ResponseWrapper<FileObjectIdentity> putFile(
+            final String bucketId, final String fileName, InputStream stream, long contentLength, String mimeType
+    ) {
+        return sendFile(bucketId, fileName,
+                RequestMaker.StreamBody.once(stream, contentLength), mimeType, WriteMode.UPSERT);
+    }
+
+    /**
+     * Same as {@link #putFile(String, String, InputStream, long, String)}, but a fresh stream
+     * is obtained from the supplier for every attempt.
+     * @param contentLength the number of bytes each stream will provide, or -1 if unknown
+     */
+    public ResponseWrapper<FileObjectIdentity> putFile(
+            final String bucketId, final String fileName, Supplier<? extends InputStream> streamSupplier,
+            long contentLength, String mimeType
+    ) {
+        return sendFile(bucketId, fileName,
+                new RequestMaker.StreamBody(streamSupplier, contentLength), mimeType, WriteMode.UPSERT);
+    }
+
+    /**
+     * Async version of {@link #putFile(String, String, byte[], String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> putFileAsync(
+            final String bucketId, final String fileName, byte[] bytes, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName, bytes, mimeType, WriteMode.UPSERT);
+    }
+
+    /**
+     * Async version of {@link #putFile(String, String, Path, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> putFileAsync(
+            final String bucketId, final String fileName, Path file, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName, file, mimeType, WriteMode.UPSERT);
+    }
+
+    /**
+     * Async version of {@link #putFile(String, String, InputStream, long, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> putFileAsync(
+            final String bucketId, final String fileName, InputStream stream, long contentLength, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName,
+                RequestMaker.StreamBody.once(stream, contentLength), mimeType, WriteMode.UPSERT);
+    }
+
+    /**
+     * Async version of {@link #putFile(String, String, Supplier, long, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> putFileAsync(
+            final String bucketId, final String fileName, Supplier<? extends InputStream> streamSupplier,
+            long contentLength, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName,
+                new RequestMaker.StreamBody(streamSupplier, contentLength), mimeType, WriteMode.UPSERT);
+    }
+
     /**
      * REST DELETE url/storage/v1/object/test-bucket-id/some-file-name
      * REST response body: {"message": "Successfully deleted"}
@@ -468,21 +1127,127 @@ public class StorageClient {
      * }
      */
     public ResponseWrapper<String> deleteFile(final String bucketId, final String fileName) {
-        ResponseWrapper<String> rw = newRequest()
+        uncache(bucketId, fileName);
+        ResponseWrapper<byte[]> rw = newRequest()
                 .object()
+                .limit(Budget.METADATA, bucketId)
                 .path(bucketId + "/" + fileName)
                 .delete()
-                .make();
-        try {
-            if (rw.body() != null) {
-                HashMap<String, String> resMap = Mapper.mapper.readValue(rw.body(), new TypeReference<>() {});
-                return new ResponseWrapper<>(resMap.get("message"), null, null);
-                // todo: might wanna replace with record with message only
+                .makeBytes();
+        // todo: might wanna replace with record with message only
+        return mapBody(rw, Mapper::toMessage);
+    }
+
+    /**
+     * Async version of {@link #deleteFile(String, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<String>> deleteFileAsync(final String bucketId, final String fileName) {
+        uncache(bucketId, fileName);
+        return mapBodyAsync(newRequest()
+                .object()
+                .limit(Budget.METADATA, bucketId)
+                .path(bucketId + "/" + fileName)
+                .delete()
+                .makeBytesAsync(), Mapper::toMessage);
+    }
+
+    /**
+     * Deletes many objects with as few requests as possible: the paths are split into
+     * batches of {@value #DELETE_BATCH_SIZE} (the most the server accepts in one request),
+     * and up to {@value #DEFAULT_DELETE_CONCURRENCY} batches are sent at a time.
+     * <br>REST DELETE url/storage/v1/object/test-bucket-id
+     * <br>REST request body: {"prefixes": ["folder/file-1", "file-2"]}
+     * <br>REST response body: an array of the deleted objects, in the listing format
+     * <br>The body of the returned wrapper has one result per given path, in the same order.
+     * Objects that didn't exist aren't an error; they're reported as not deleted. When a batch
+     * fails, each of its results carries the batch's error response or exception.
+     */
+    public ResponseWrapper<List<FileDeleteResult>> deleteFiles(
+            final String bucketId, final Collection<String> paths) {
+        return deleteFiles(bucketId, paths, DEFAULT_DELETE_CONCURRENCY);
+    }
+
+    /**
+     * Same as {@link #deleteFiles(String, Collection)}, with up to {@code maxConcurrentBatches}
+     * batches in flight at a time.
+     */
+    public ResponseWrapper<List<FileDeleteResult>> deleteFiles(
+            final String bucketId, final Collection<String> paths, final int maxConcurrentBatches) {
+        return deleteFilesAsync(bucketId, paths, maxConcurrentBatches).join();
+    }
+
+    /**
+     * Async version of {@link #deleteFiles(String, Collection)}.
+     */
+    public CompletableFuture<ResponseWrapper<List<FileDeleteResult>>> deleteFilesAsync(
+            final String bucketId, final Collection<String> paths) {
+        return deleteFilesAsync(bucketId, paths, DEFAULT_DELETE_CONCURRENCY);
+    }
+
+    /**
+     * Async version of {@link #deleteFiles(String, Collection, int)}.
+     */
+    public CompletableFuture<ResponseWrapper<List<FileDeleteResult>>> deleteFilesAsync(
+            final String bucketId, final Collection<String> paths, final int maxConcurrentBatches) {
+        if (maxConcurrentBatches < 1) {
+            throw new IllegalArgumentException("The number of concurrent batches must be positive");
+        }
+        final List<String> allPaths = List.copyOf(paths);
+        final int batchCount = (allPaths.size() + DELETE_BATCH_SIZE - 1) / DELETE_BATCH_SIZE;
+        final List<List<FileDeleteResult>> batchResults = new ArrayList<>(Collections.nCopies(batchCount, null));
+        // every lane sends its batches one after another, so at most that many are in flight
+        final CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(batchCount, maxConcurrentBatches)];
+        for (int lane = 0; lane < lanes.length; lane++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < batchCount; i += lanes.length) {
+                final int batchIndex = i;
+                final List<String> batch = allPaths.subList(i * DELETE_BATCH_SIZE,
+                        Math.min((i + 1) * DELETE_BATCH_SIZE, allPaths.size()));
+                chain = chain.thenCompose(ignore -> deleteBatchAsync(bucketId, batch))
+                        .thenAccept(results -> batchResults.set(batchIndex, results));
             }
-            return rw;
-        } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
+            lanes[lane] = chain;
+        }
+        return CompletableFuture.allOf(lanes)
+                .thenApply(ignore -> {
+                    List<FileDeleteResult> results = new ArrayList<>(allPaths.size());
+                    batchResults.forEach(results::addAll);
+                    return new ResponseWrapper<>(results, null, null);
+                })
+                .exceptionally(RequestMaker::toExceptionResponse);
+    }
+
+    private CompletableFuture<List<FileDeleteResult>> deleteBatchAsync(
+            final String bucketId, final List<String> batch) {
+        batch.forEach(path -> uncache(bucketId, path));
+        final byte[] json = Mapper.toJsonBytes(Map.of("prefixes", batch));
+        return mapBodyAsync(newRequest()
+                .object()
+                .limit(Budget.METADATA, bucketId)
+                .path(bucketId)
+                .delete(json)
+                .jsonContent()
+                .makeBytesAsync(), Mapper::toObjects)
+                .thenApply(rw -> toDeleteResults(batch, rw));
+    }
+
+    private static List<FileDeleteResult> toDeleteResults(
+            final List<String> batch, final ResponseWrapper<List<FileObject>> rw) {
+        final List<FileDeleteResult> results = new ArrayList<>(batch.size());
+        if (!rw.hasBody()) {
+            for (String path : batch) {
+                results.add(new FileDeleteResult(path, false, rw.errorResponse(), rw.exception()));
+            }
+            return results;
         }
+        final Set<String> deleted = new HashSet<>();
+        for (FileObject object : rw.body()) {
+            deleted.add(object.name());
+        }
+        for (String path : batch) {
+            results.add(new FileDeleteResult(path, deleted.contains(path), null, null));
+        }
+        return results;
     }
 
     /**
@@ -505,21 +1270,7 @@ public class StorageClient {
     public ResponseWrapper<FileObjectIdentity> updateFile(
             final String bucketId, final String fileName, byte[] bytes, String mimeType
     ) {
-        ResponseWrapper<String> rw = newRequest()
-                .object()
-                .path(bucketId + "/" + fileName)
-                .put(bytes)
-                .contentType(mimeType)
-                .make();
-        try {
-            if (rw.body() != null) {
-                FileObjectIdentity identity = Mapper.toIdentity(rw.body());
-                return new ResponseWrapper<>(identity, null, null);
-            }
-            return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception());
-        } catch (Exception e) {
-            return new ResponseWrapper<>(null, null, e.getMessage());
-        }
+        return sendFile(bucketId, fileName, bytes, mimeType, WriteMode.UPDATE);
     }
 
     public ResponseWrapper<FileObjectIdentity> updateFile(
@@ -528,6 +1279,82 @@ public class StorageClient {
         return updateFile(bucketId, fileName, bytes, null);
     }
 
+    /**
+     * Same as {@link #updateFile(String, String, byte[], String)}, but the file is streamed
+     * from disk as it's being sent, instead of being loaded into memory first.
+     */
+    public ResponseWrapper<FileObjectIdentity> updateFile(
+            final String bucketId, final String fileName, Path file, String mimeType
+    ) {
+        return sendFile(bucketId, fileName, file, mimeType, WriteMode.UPDATE);
+    }
+
+    /**
+     * Same as {@link #updateFile(String, String, byte[], String)}, but the payload is streamed
+     * from the given {@link InputStream} as it's being sent. The stream isn't closed.
+     * <br><br>Since a stream can only be read once, the update can't be retried; if that's
+     * needed, use {@link #updateFile(String, String, Supplier, long, String)} instead.
+     * @param contentLength the number of bytes the stream will provide, or -1 if unknown
+     */
+    public ResponseWrapper<FileObjectIdentity> updateFile(
+            final String bucketId, final String fileName, InputStream stream, long contentLength, String mimeType
+    ) {
+        return sendFile(bucketId, fileName, RequestMaker.StreamBody.once(stream, contentLength), mimeType, WriteMode.UPDATE);
+    }
+
+    /**
+     * Same as {@link #updateFile(String, String, InputStream, long, String)}, but the stream
+     * is obtained from the supplier, which is called once per attempt and so it should
+     * return a fresh stream every time.
+     * @param contentLength the number of bytes each stream will provide, or -1 if unknown
+     */
+    public ResponseWrapper<FileObjectIdentity> updateFile(
+            final String bucketId, final String fileName, Supplier<? extends InputStream> streamSupplier,
+            long contentLength, String mimeType
+    ) {
+        return sendFile(bucketId, fileName,
+                new RequestMaker.StreamBody(streamSupplier, contentLength), mimeType, WriteMode.UPDATE);
+    }
+
+    /**
+     * Async version of {@link #updateFile(String, String, byte[], String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> updateFileAsync(
+            final String bucketId, final String fileName, byte[] bytes, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName, bytes, mimeType, WriteMode.UPDATE);
+    }
+
+    /**
+     * Async version of {@link #updateFile(String, String, Path, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> updateFileAsync(
+            final String bucketId, final String fileName, Path file, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName, file, mimeType, WriteMode.UPDATE);
+    }
+
+    /**
+     * Async version of {@link #updateFile(String, String, InputStream, long, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> updateFileAsync(
+            final String bucketId, final String fileName, InputStream stream, long contentLength, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName,
+                RequestMaker.StreamBody.once(stream, contentLength), mimeType, WriteMode.UPDATE);
+    }
+
+    /**
+     * Async version of {@link #updateFile(String, String, Supplier, long, String)}.
+     */
+    public CompletableFuture<ResponseWrapper<FileObjectIdentity>> updateFileAsync(
+            final String bucketId, final String fileName, Supplier<? extends InputStream> streamSupplier,
+            long contentLength, String mimeType
+    ) {
+        return sendFileAsync(bucketId, fileName,
+                new RequestMaker.StreamBody(streamSupplier, contentLength), mimeType, WriteMode.UPDATE);
+    }
+
     /**
      * REST POST url/storage/v1/object/move
      * REST response body: {"message": "Successfully moved"}
@@ -540,25 +1367,281 @@ public class StorageClient {
      */
     public ResponseWrapper<String> moveFile(FileMoveOptions moveOptions) {
         try {
-            String json = moveOptions.toJson();
-            ResponseWrapper<String> rw = newRequest()
-                    .object()
-                    .path("move")
-                    .post(json)
-                    .jsonContent()
-                    .make();
+            ResponseWrapper<byte[]> rw = moveFileRequest(moveOptions).makeBytes();
+            // todo: might wanna replace with record with message only
+            return mapBody(rw, Mapper::toMessage);
+        } catch (Exception e) {
+            return new ResponseWrapper<>(null, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Async version of {@link #moveFile(FileMoveOptions)}.
+     */
+    public CompletableFuture<ResponseWrapper<String>> moveFileAsync(FileMoveOptions moveOptions) {
+        try {
+            return mapBodyAsync(moveFileRequest(moveOptions).makeBytesAsync(), Mapper::toMessage);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(new ResponseWrapper<>(null, null, e.getMessage()));
+        }
+    }
+
+    private RequestMaker moveFileRequest(FileMoveOptions moveOptions) {
+        final byte[] json = Mapper.toJsonBytes(moveOptions);
+        uncache(moveOptions.sourceBucketId(), moveOptions.sourceFilePath());
+        uncache(moveOptions.destinationBucketId(), moveOptions.destinationFilePath());
+        return newRequest()
+                .object()
+                .limit(Budget.METADATA, moveOptions.sourceBucketId())
+                .path("move")
+                .post(json)
+                .jsonContent();
+    }
+
+    /**
+     * @return a snapshot of this client's state, for monitoring
+     */
+    public StorageClientMetrics metrics() {
+        final ConcurrencyLimiter limiter = transport.concurrencyLimiter();
+        final long coalesced = transport.singleFlight().coalesced();
+        return limiter == null
+                ? new StorageClientMetrics(0, 0, coalesced)
+                : new StorageClientMetrics(limiter.limit(), limiter.inFlight(), coalesced);
+    }
+
+    /**
+     * Releases the connection pool and threads shared by all requests of this client.
+     * Any request made after closing returns a {@link ResponseWrapper} with an exception.
+     */
+    @Override
+    public void close() {
+        transport.close();
+    }
+
+    /**
+     * POSTs (uploads or upserts) or PUTs (updates) the file; the body can be anything
+     * {@link RequestMaker#post(Object)} accepts.
+     */
+    private ResponseWrapper<FileObjectIdentity> sendFile(
+            final String bucketId, final String fileName, Object body, String mimeType, WriteMode mode
+    ) {
+        if (isUploadChecked(bucketId)) {
+            final ErrorResponse rejection = checkUpload(bucketToCheck(bucketId, getBucket(bucketId)), body, mimeType);
+            if (rejection != null) {
+                return new ResponseWrapper<>(null, rejection, null, 0);
+            }
+        }
+        try {
+            ResponseWrapper<byte[]> rw = sendFileRequest(bucketId, fileName, body, mimeType, mode).makeBytes();
+            return mapBody(rw, Mapper::toIdentity);
+        } catch (Exception e) {
+            return new ResponseWrapper<>(null, null, e.getMessage());
+        }
+    }
+
+    private CompletableFuture<ResponseWrapper<FileObjectIdentity>> sendFileAsync(
+            final String bucketId, final String fileName, Object body, String mimeType, WriteMode mode
+    ) {
+        if (isUploadChecked(bucketId)) {
+            final Bucket cached = cachedBucket(bucketId);
+            if (cached == null) {
+                return getBucketAsync(bucketId).thenCompose(rw -> checkedSendFileAsync(
+                        bucketId, fileName, body, mimeType, mode, bucketToCheck(bucketId, rw)));
+            }
+            return checkedSendFileAsync(bucketId, fileName, body, mimeType, mode, cached);
+        }
+        return checkedSendFileAsync(bucketId, fileName, body, mimeType, mode, null);
+    }
+
+    /**
+     * @return whether uploads to the bucket are checked against its metadata: only when it's
+     * cached, and not for buckets the server recently refused to return
+     */
+    private boolean isUploadChecked(final String bucketId) {
+        final BucketCache cache = transport.bucketCache();
+        return cache != null && !cache.isUnreadable(bucketId);
+    }
+
+    /**
+     * getBucket caches the bucket, or tells us nothing if we aren't allowed to read it; that's
+     * remembered, so that the next uploads don't ask again.
+     * @return the bucket to check an upload against, or null to not check it
+     */
+    private Bucket bucketToCheck(final String bucketId, ResponseWrapper<Bucket> rw) {
+        final BucketCache cache = transport.bucketCache();
+        if (cache != null && rw.hasError()) {
+            cache.putUnreadable(bucketId);
+        }
+        return rw.body();
+    }
+
+    /**
+     * @param bucket the bucket to check the upload against, or null to not check it
+     */
+    private CompletableFuture<ResponseWrapper<FileObjectIdentity>> checkedSendFileAsync(
+            final String bucketId, final String fileName, Object body, String mimeType, WriteMode mode, Bucket bucket
+    ) {
+        final ErrorResponse rejection = checkUpload(bucket, body, mimeType);
+        if (rejection != null) {
+            return CompletableFuture.completedFuture(new ResponseWrapper<>(null, rejection, null, 0));
+        }
+        try {
+            return mapBodyAsync(sendFileRequest(bucketId, fileName, body, mimeType, mode).makeBytesAsync(),
+                    Mapper::toIdentity);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(new ResponseWrapper<>(null, null, e.getMessage()));
+        }
+    }
+
+    /**
+     * @param bucket the bucket to check the upload against, or null if it isn't known
+     * @return why the server would reject the upload, or null if it wouldn't (as far as we know)
+     */
+    private static ErrorResponse checkUpload(Bucket bucket, Object body, String mimeType) {
+        return bucket == null ? null : UploadCheck.check(bucket, UploadCheck.sizeOf(body), mimeType);
+    }
+
+    private RequestMaker sendFileRequest(
+            final String bucketId, final String fileName, Object body, String mimeType, WriteMode mode
+    ) {
+        uncache(bucketId, fileName);
+        RequestMaker requestMaker = newRequest()
+                .object()
+                .limit(Budget.DATA, bucketId)
+                .path(bucketId + "/" + fileName);
+        requestMaker = mode == WriteMode.UPDATE ? requestMaker.put(body) : requestMaker.post(body);
+        if (mode == WriteMode.UPSERT) {
+            requestMaker = requestMaker.header("x-upsert", "true");
+        }
+        return requestMaker.contentType(mimeType);
+    }
+
+    /**
+     * Drops the file from the download cache, if there is one, since it's about to change.
+     * Reads revalidate anyway; this just frees the memory sooner.
+     */
+    private void uncache(final String bucketId, final String fileName) {
+        final DownloadCache cache = transport.downloadCache();
+        if (cache != null) {
+            cache.invalidate(bucketId + "/" + fileName);
+        }
+    }
+
+    /**
+     * Maps the body of a successful response with the given mapper; error responses and
+     * exceptions are passed on as they are, and mapping failures become exceptions.
+     */
+    private static <S, T> ResponseWrapper<T> mapBody(ResponseWrapper<S> rw, Function<S, T> mapper) {
+        try {
             if (rw.body() != null) {
-                HashMap<String, String> resMap = Mapper.mapper.readValue(rw.body(), new TypeReference<>() {});
-                return new ResponseWrapper<>(resMap.get("message"), null, null);
-                // todo: might wanna replace with record with message only
+                return new ResponseWrapper<>(mapper.apply(rw.body()), null, null, rw.attempts());
+            }
+            return new ResponseWrapper<>(null, rw.errorResponse(), rw.exception(), rw.attempts());
+        } catch (Exception e) {
+            return new ResponseWrapper<>(null, null, e.getMessage(), rw.attempts());
+        }
+    }
+
+    /**
+     * Same as {@link #mapBody(ResponseWrapper, Function)}, but the mapping runs on the
+     * configured executor once the response arrives.
+     */
+    private <S, T> CompletableFuture<ResponseWrapper<T>> mapBodyAsync(
+            CompletableFuture<ResponseWrapper<S>> future, Function<S, T> mapper
+    ) {
+        return mapBodyAsync(future, mapper, parsingExecutor);
+    }
+
+    private static <S, T> CompletableFuture<ResponseWrapper<T>> mapBodyAsync(
+            CompletableFuture<ResponseWrapper<S>> future, Function<S, T> mapper, Executor executor
+    ) {
+        return cancelling(future, future.thenApplyAsync(rw -> mapBody(rw, mapper), executor)
+                .exceptionally(RequestMaker::toExceptionResponse));
+    }
+
+    /**
+     * Makes cancelling the dependent future also cancel the source, which aborts its request.
+     */
+    private static <T> CompletableFuture<T> cancelling(CompletableFuture<?> source, CompletableFuture<T> dependent) {
+        dependent.whenComplete((result, throwable) -> {
+            if (dependent.isCancelled()) {
+                source.cancel(true);
             }
+        });
+        return dependent;
+    }
+
+    private static Path createTempFileFor(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        return Files.createTempFile(directory, "." + target.getFileName(), ".part");
+    }
+
+    /**
+     * Moves the downloaded temp file over the target if the download succeeded,
+     * otherwise deletes it.
+     */
+    private static ResponseWrapper<Path> moveIntoPlace(ResponseWrapper<Path> rw, Path tempFile, Path target) {
+        try {
+            if (rw.body() != null) {
+                moveIntoPlace(tempFile, target);
+                return new ResponseWrapper<>(target, null, null, rw.attempts());
+            }
+            Files.deleteIfExists(tempFile);
             return rw;
         } catch (Exception e) {
+            deleteQuietly(tempFile);
             return new ResponseWrapper<>(null, null, e.getMessage());
         }
     }
 
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignore) {
+        }
+    }
+
+    private enum WriteMode {
+        UPLOAD, UPDATE, UPSERT
+    }
+
     protected RequestMaker newRequest() {
-        return new RequestMaker(apiUrl, apiKey);
+        return new RequestMaker(apiUrl, apiKey, transport);
+    }
+
+    /**
+     * See {@link #withDeadline(Duration)}. It asks its parent for requests, so it keeps working
+     * with clients that override {@link #newRequest()}.
+     */
+    private static final class DeadlineView extends StorageClient {
+        private final StorageClient parent;
+        private final long deadlineNanos;
+
+        DeadlineView(StorageClient parent, long deadlineNanos) {
+            super(parent);
+            this.parent = parent;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        protected RequestMaker newRequest() {
+            return parent.newRequest().deadline(deadlineNanos);
+        }
+
+        /**
+         * Does nothing: the connections belong to the parent client.
+         */
+        @Override
+        public void close() {
+        }
     }
 }
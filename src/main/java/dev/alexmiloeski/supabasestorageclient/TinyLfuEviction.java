@@ -0,0 +1,167 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A simplified W-TinyLFU: new keys enter a small LRU window (1% of the weight); the keys the
+ * window pushes out only get into the main LRU area if they have been accessed more often
+ * than the keys they'd push out of it. Access frequencies are estimated by a count-min sketch
+ * of 4-bit counters, which are halved every so often so that old popularity fades.
+ */
+class TinyLfuEviction implements CacheEviction {
+    // an assumption, used only to size the sketch
+    private static final long AVERAGE_WEIGHT = 4096;
+
+    private final long windowMaxWeight;
+    private final long mainMaxWeight;
+    // key -> weight, in access order
+    private final LinkedHashMap<String, Long> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long windowWeight;
+    private long mainWeight;
+
+    TinyLfuEviction(long maxWeight) {
+        this.windowMaxWeight = Math.max(1, maxWeight / 100);
+        this.mainMaxWeight = maxWeight - windowMaxWeight;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 16, Math.max(64, maxWeight / AVERAGE_WEIGHT)));
+    }
+
+    @Override
+    public void onHit(String key) {
+        sketch.increment(key);
+        if (window.get(key) == null) {
+            main.get(key);
+        }
+    }
+
+    @Override
+    public void onMiss(String key) {
+        sketch.increment(key);
+    }
+
+    @Override
+    public List<String> add(String key, long weight) {
+        final List<String> evicted = new ArrayList<>();
+        window.put(key, weight);
+        windowWeight += weight;
+        final Iterator<Map.Entry<String, Long>> eldest = window.entrySet().iterator();
+        while (windowWeight > windowMaxWeight) {
+            final Map.Entry<String, Long> candidate = eldest.next();
+            eldest.remove();
+            windowWeight -= candidate.getValue();
+            if (!admit(candidate.getKey(), candidate.getValue(), evicted)) {
+                evicted.add(candidate.getKey());
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public void remove(String key) {
+        Long removed = window.remove(key);
+        if (removed != null) {
+            windowWeight -= removed;
+            return;
+        }
+        removed = main.remove(key);
+        if (removed != null) {
+            mainWeight -= removed;
+        }
+    }
+
+    /**
+     * Moves the candidate into the main area if there's room, or if it's more popular than
+     * every key that would have to make room for it, which are then evicted.
+     */
+    private boolean admit(String candidate, long weight, List<String> evicted) {
+        if (weight > mainMaxWeight) {
+            return false;
+        }
+        final List<String> victims = new ArrayList<>();
+        long freed = 0;
+        final int candidateFrequency = sketch.frequency(candidate);
+        for (Iterator<Map.Entry<String, Long>> it = main.entrySet().iterator();
+             mainWeight - freed + weight > mainMaxWeight; ) {
+            final Map.Entry<String, Long> victim = it.next();
+            if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                return false;
+            }
+            victims.add(victim.getKey());
+            freed += victim.getValue();
+        }
+        for (String victim : victims) {
+            mainWeight -= main.remove(victim);
+        }
+        evicted.addAll(victims);
+        main.put(candidate, weight);
+        mainWeight += weight;
+        return true;
+    }
+
+    /**
+     * 4 rows of 4-bit counters, one counter per row for each key.
+     */
+    static final class FrequencySketch {
+        private static final int ROWS = 4;
+        private static final int MAX_COUNT = 15;
+
+        private final byte[] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedKeys) {
+            final int width = Integer.highestOneBit(Math.max(2, expectedKeys) - 1) << 1;
+            this.counters = new byte[ROWS * width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(String key) {
+            final int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int row = 0; row < ROWS; row++) {
+                final int index = indexOf(hash, row);
+                if (counters[index] < MAX_COUNT) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(String key) {
+            final int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < ROWS; row++) {
+                frequency = Math.min(frequency, counters[indexOf(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int row) {
+            // double hashing: a different probe per row, from the same hash
+            final int probe = hash + row * ((hash >>> 16) | 1);
+            return row * (mask + 1) + (probe & mask);
+        }
+
+        private void reset() {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] >>= 1;
+            }
+            additions /= 2;
+        }
+
+        private static int spread(int hash) {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 15);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.RateLimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket. Instead of a token count that has to be refilled, it keeps one
+ * timestamp: when the next permit would be due if the bucket were empty (the "generic cell
+ * rate algorithm"). Taking a permit is a single compare-and-set that moves it forward by one
+ * interval, and idle time refills the bucket implicitly, up to the burst.
+ */
+final class TokenBucket {
+    private final long intervalNanos;
+    // how far ahead of now the due time may run before callers have to wait: burst - 1 intervals
+    private final long toleranceNanos;
+    private final AtomicLong dueNanos;
+
+    TokenBucket(RateLimit limit) {
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000d / limit.permitsPerSecond()));
+        this.toleranceNanos = intervalNanos * (limit.burst() - 1);
+        this.dueNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a permit, unless it's further away than {@code maxWaitNanos}.
+     * @return how many nanoseconds the caller has to wait before using the permit, or -1 if
+     * the permit wasn't taken because the wait would be too long
+     */
+    long reserve(long maxWaitNanos) {
+        while (true) {
+            final long now = System.nanoTime();
+            final long due = dueNanos.get();
+            final long start = due - now > 0 ? due : now;
+            final long wait = start - toleranceNanos - now;
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (dueNanos.compareAndSet(due, start + intervalNanos)) {
+                return Math.max(0, wait);
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.RetryPolicy;
+import dev.alexmiloeski.supabasestorageclient.model.options.StorageClientOptions;
+import dev.alexmiloeski.supabasestorageclient.model.options.Timeouts;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The long-lived, thread-safe part of the request path. One instance is owned by a
+ * {@link StorageClient} and shared by every {@link RequestMaker} it creates, so all requests
+ * reuse the same {@link HttpClient} (and with it the connection pool, TLS sessions and the
+ * selector thread).
+ */
+class Transport implements AutoCloseable {
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final HttpClient client;
+    // null when the HttpClient was supplied from outside; then we don't own its lifecycle
+    private final ExecutorService executor;
+    // for reads that block until the HttpClient delivers more of a body, so never an executor
+    // the HttpClient depends on with a bounded number of threads; when it can't be the owned
+    // executor, a pool of its own that's only created once it's needed
+    private ExecutorService blockingExecutor;
+    private final ReentrantLock blockingExecutorLock = new ReentrantLock();
+    private final RetryPolicy retryPolicy;
+    private final RateLimiter rateLimiter;
+    // null when adaptive concurrency is off
+    private final ConcurrencyLimiter concurrencyLimiter;
+    // null when hedging is off
+    private final Hedger hedger;
+    // null when the circuit breaker is off
+    private final CircuitBreaker circuitBreaker;
+    private final Timeouts timeouts;
+    // null when downloads aren't cached
+    private final DownloadCache downloadCache;
+    private final SingleFlight singleFlight = new SingleFlight();
+    // null when bucket metadata isn't cached
+    private final BucketCache bucketCache;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * A transport around the given client that never retries and doesn't limit the rate.
+     */
+    Transport(HttpClient client) {
+        this(client, null, StorageClientOptions.builder().retryPolicy(RetryPolicy.none()).build());
+    }
+
+    private Transport(HttpClient client, ExecutorService executor, StorageClientOptions options) {
+        this.client = client;
+        this.executor = executor;
+        // unbounded, so a blocked read can't hold up the delivery of the body it waits for
+        this.blockingExecutor = executor;
+        this.retryPolicy = options.retryPolicy();
+        this.rateLimiter = new RateLimiter(options.rateLimits());
+        this.concurrencyLimiter = options.adaptiveConcurrency() == null
+                ? null
+                : new ConcurrencyLimiter(options.adaptiveConcurrency());
+        this.hedger = options.hedgingPolicy() == null ? null : new Hedger(options.hedgingPolicy());
+        this.circuitBreaker = options.circuitBreaker() == null ? null : new CircuitBreaker(options.circuitBreaker());
+        this.timeouts = options.timeouts();
+        this.bucketCache = options.bucketCacheTtl() == null ? null : new BucketCache(options.bucketCacheTtl());
+        this.downloadCache = options.downloadCache() == null && options.diskCache() == null
+                ? null
+                : new DownloadCache(options.downloadCache(),
+                        options.diskCache() == null ? null : new DiskCache(options.diskCache()), singleFlight);
+    }
+
+    static Transport create() {
+        return create(StorageClientOptions.defaults());
+    }
+
+    static Transport create(StorageClientOptions options) {
+        if (options.executor() != null) {
+            HttpClient client = clientBuilder(options)
+                    .executor(options.executor())
+                    .build();
+            return new Transport(client, null, options);
+        }
+        ExecutorService executor = options.virtualThreads()
+                ? VirtualThreads.newExecutor()
+                : Executors.newCachedThreadPool(daemonThreadFactory("supabase-storage-http-"));
+        HttpClient client = clientBuilder(options)
+                .executor(executor)
+                .build();
+        return new Transport(client, executor, options);
+    }
+
+    private static HttpClient.Builder clientBuilder(StorageClientOptions options) {
+        HttpClient.Builder builder = HttpClient.newBuilder();
+        if (options.timeouts().connect() != null) {
+            builder = builder.connectTimeout(options.timeouts().connect());
+        }
+        return builder;
+    }
+
+    <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        if (closed.get()) {
+            throw new IllegalStateException("The storage client has been closed");
+        }
+        return client.send(request, bodyHandler);
+    }
+
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                     HttpResponse.BodyHandler<T> bodyHandler) {
+        if (closed.get()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("The storage client has been closed"));
+        }
+        return client.sendAsync(request, bodyHandler);
+    }
+
+    /**
+     * @return the executor created and owned by this transport, or null if the HttpClient
+     * was supplied from outside or built with a custom executor
+     */
+    ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * @return the executor to run reads of a streamed body on, which block until the body
+     * arrives; never the custom executor of the HttpClient, which delivers the body
+     */
+    ExecutorService blockingExecutor() {
+        blockingExecutorLock.lock();
+        try {
+            if (blockingExecutor == null) {
+                // the HttpClient's executor isn't ours, and may have too few threads to also wait for bodies
+                blockingExecutor = Executors.newCachedThreadPool(daemonThreadFactory("supabase-storage-read-"));
+                if (closed.get()) {
+                    blockingExecutor.shutdown();
+                }
+            }
+            return blockingExecutor;
+        } finally {
+            blockingExecutorLock.unlock();
+        }
+    }
+
+    RetryPolicy retryPolicy() {
+        return retryPolicy;
+    }
+
+    RateLimiter rateLimiter() {
+        return rateLimiter;
+    }
+
+    ConcurrencyLimiter concurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    Hedger hedger() {
+        return hedger;
+    }
+
+    CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    Timeouts timeouts() {
+        return timeouts;
+    }
+
+    SingleFlight singleFlight() {
+        return singleFlight;
+    }
+
+    BucketCache bucketCache() {
+        return bucketCache;
+    }
+
+    DownloadCache downloadCache() {
+        return downloadCache;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Stops accepting new requests, releases the threads owned by this transport and saves
+     * the disk cache's index. Requests that are already in flight are allowed to finish.
+     * Calling it more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        blockingExecutorLock.lock();
+        try {
+            if (blockingExecutor != null && blockingExecutor != executor) {
+                blockingExecutor.shutdown();
+            }
+        } finally {
+            blockingExecutorLock.unlock();
+        }
+        if (downloadCache != null) {
+            downloadCache.close();
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        return runnable -> {
+            Thread thread = new Thread(runnable,
+                    namePrefix + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
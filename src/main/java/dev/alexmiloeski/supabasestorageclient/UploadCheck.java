@@ -0,0 +1,76 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.Bucket;
+import dev.alexmiloeski.supabasestorageclient.model.responses.ErrorResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Checks an upload against its bucket's size limit and allowed MIME types, before sending it,
+ * the same way the server would. Rejections look like the server's own.
+ */
+final class UploadCheck {
+
+    private UploadCheck() {
+    }
+
+    /**
+     * @param size the size of the upload in bytes, or a negative number if unknown
+     * @param mimeType the upload's MIME type, or null if unknown
+     * @return why the server would reject the upload, or null if it wouldn't (as far as we know)
+     */
+    static ErrorResponse check(Bucket bucket, long size, String mimeType) {
+        final Integer sizeLimit = bucket.fileSizeLimit();
+        if (sizeLimit != null && sizeLimit > 0 && size > sizeLimit) {
+            return new ErrorResponse("413", "Payload too large", "The object exceeded the maximum allowed size");
+        }
+        if (mimeType != null && bucket.allowedMimeTypes() != null && !bucket.allowedMimeTypes().isEmpty()
+                && !isAllowed(mimeType, bucket)) {
+            return new ErrorResponse("415", "invalid_mime_type", "mime type " + mimeType + " is not supported");
+        }
+        return null;
+    }
+
+    /**
+     * @return the size of an upload body, or -1 if it isn't known in advance
+     */
+    static long sizeOf(Object body) {
+        if (body instanceof byte[] bytes) {
+            return bytes.length;
+        } else if (body instanceof Path path) {
+            try {
+                return Files.size(path);
+            } catch (IOException e) {
+                return -1;
+            }
+        } else if (body instanceof RequestMaker.StreamBody stream) {
+            return stream.contentLength();
+        }
+        return -1;
+    }
+
+    /**
+     * Allowed types are either exact ("image/png") or wildcards ("image/*"); parameters like
+     * "; charset=utf-8" and case are ignored.
+     */
+    private static boolean isAllowed(String mimeType, Bucket bucket) {
+        final String type = normalize(mimeType);
+        for (String allowed : bucket.allowedMimeTypes()) {
+            final String allowedType = normalize(allowed);
+            if (allowedType.equals(type) || allowedType.equals("*/*")
+                    || allowedType.endsWith("/*")
+                    && type.startsWith(allowedType.substring(0, allowedType.length() - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String mimeType) {
+        final int parameters = mimeType.indexOf(';');
+        return (parameters < 0 ? mimeType : mimeType.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,378 @@
+package dev.alexmiloeski.supabasestorageclient.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.UUID;
+
+/**
+ * An append-only list of {@link FileObject}s that takes a fraction of the memory of a list of
+ * the records themselves, for holding listings of millions of files.
+ * <br>Instead of a record with seven Strings per file, it keeps a few columns of primitives:
+ * <ul>
+ *     <li>names in one shared byte array, each stored as the number of leading bytes it has in
+ *     common with the previous name plus the bytes that differ (listings come sorted by name,
+ *     so neighbours share most of their path)</li>
+ *     <li>ids as the two halves of their UUID</li>
+ *     <li>timestamps as epoch milliseconds</li>
+ *     <li>sizes and status codes as numbers</li>
+ *     <li>eTags as the MD5 hash they're made of</li>
+ *     <li>MIME types and cache-control values as ids into a table of the distinct ones</li>
+ * </ul>
+ * Values that don't fit their column (an id that isn't a UUID, a timestamp in another format)
+ * are kept as they are, on the side, so every entry reads back exactly as it was added.
+ * <br>{@link #get(int)} builds a new {@link FileObject} on every call; hold on to the ones you
+ * need rather than to the whole listing in record form.
+ * <br>Not thread-safe: entries must not be added while the listing is being read elsewhere.
+ */
+public final class CompactFileListing extends AbstractList<FileObject> implements RandomAccess {
+    // every this many entries, a name is stored whole, so reading one decodes at most this many
+    private static final int RESTART_INTERVAL = 16;
+    private static final int MAX_SHARED_PREFIX = Character.MAX_VALUE;
+    private static final long IRREGULAR = Long.MIN_VALUE;
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private static final int ID = 0;
+    private static final int NAME = 1;
+    private static final int CREATED_AT = 2;
+    private static final int UPDATED_AT = 3;
+    private static final int LAST_ACCESSED_AT = 4;
+    private static final int E_TAG = 5;
+    private static final int LAST_MODIFIED = 6;
+
+    private int size;
+
+    private byte[] names = new byte[1024];
+    private int namesLength;
+    private int[] nameOffsets = new int[64];
+    private char[] sharedPrefixes = new char[64];
+    private byte[] previousName = new byte[0];
+
+    private final BitSet uuids = new BitSet();
+    private long[] idHigh = new long[64];
+    private long[] idLow = new long[64];
+
+    private long[] createdAt = new long[64];
+    private long[] updatedAt = new long[64];
+    private long[] lastAccessedAt = new long[64];
+
+    private final BitSet withMetadata = new BitSet();
+    private long[] eTagHigh = new long[64];
+    private long[] eTagLow = new long[64];
+    // the part count of a multipart upload's eTag, 0 for a plain MD5, -1 if it's irregular
+    private int[] eTagParts = new int[64];
+    private long[] sizes = new long[64];
+    private int[] mimeTypes = new int[64];
+    private int[] cacheControls = new int[64];
+    private long[] lastModified = new long[64];
+    private long[] contentLengths = new long[64];
+    private short[] httpStatusCodes = new short[64];
+
+    private final Dictionary mimeTypeDictionary = new Dictionary();
+    private final Dictionary cacheControlDictionary = new Dictionary();
+
+    // values that don't fit their column, by entry index * 8 + field
+    private final Map<Long, String> irregular = new HashMap<>();
+
+    public CompactFileListing() {}
+
+    public CompactFileListing(Iterable<FileObject> fileObjects) {
+        fileObjects.forEach(this::add);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(FileObject fileObject) {
+        ensureCapacity(size + 1);
+        final int index = size;
+        addName(index, fileObject.name());
+        addId(index, fileObject.id());
+        createdAt[index] = toEpochMillis(index, CREATED_AT, fileObject.createdAt());
+        updatedAt[index] = toEpochMillis(index, UPDATED_AT, fileObject.updatedAt());
+        lastAccessedAt[index] = toEpochMillis(index, LAST_ACCESSED_AT, fileObject.lastAccessedAt());
+        final FileObject.Metadata metadata = fileObject.metadata();
+        if (metadata != null) {
+            withMetadata.set(index);
+            addETag(index, metadata.eTag());
+            sizes[index] = metadata.size();
+            mimeTypes[index] = mimeTypeDictionary.idOf(metadata.mimetype());
+            cacheControls[index] = cacheControlDictionary.idOf(metadata.cacheControl());
+            lastModified[index] = toEpochMillis(index, LAST_MODIFIED, metadata.lastModified());
+            contentLengths[index] = metadata.contentLength();
+            httpStatusCodes[index] = (short) metadata.httpStatusCode();
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * @return a new {@link FileObject} with the values of the entry at the given index
+     */
+    @Override
+    public FileObject get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        FileObject.Metadata metadata = null;
+        if (withMetadata.get(index)) {
+            metadata = new FileObject.Metadata(
+                    eTagOf(index),
+                    sizes[index],
+                    mimeTypeDictionary.valueOf(mimeTypes[index]),
+                    cacheControlDictionary.valueOf(cacheControls[index]),
+                    toTimestamp(index, LAST_MODIFIED, lastModified[index]),
+                    contentLengths[index],
+                    httpStatusCodes[index]);
+        }
+        return new FileObject(
+                idOf(index),
+                nameOf(index),
+                toTimestamp(index, CREATED_AT, createdAt[index]),
+                toTimestamp(index, UPDATED_AT, updatedAt[index]),
+                toTimestamp(index, LAST_ACCESSED_AT, lastAccessedAt[index]),
+                metadata);
+    }
+
+    /**
+     * @return the name of the entry at the given index, without building the whole entry
+     */
+    public String nameAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return nameOf(index);
+    }
+
+    /**
+     * Shrinks the internal arrays to the number of entries, once no more will be added.
+     */
+    public void trimToSize() {
+        resize(size);
+        names = Arrays.copyOf(names, namesLength);
+    }
+
+    private void addName(int index, String name) {
+        final byte[] bytes;
+        if (name == null) {
+            irregular.put(key(index, NAME), null);
+            bytes = new byte[0];
+        } else {
+            bytes = name.getBytes(StandardCharsets.UTF_8);
+        }
+        int shared = 0;
+        if (index % RESTART_INTERVAL != 0) {
+            final int limit = Math.min(MAX_SHARED_PREFIX, Math.min(bytes.length, previousName.length));
+            while (shared < limit && bytes[shared] == previousName[shared]) {
+                shared++;
+            }
+        }
+        final int suffixLength = bytes.length - shared;
+        if (namesLength + suffixLength > names.length) {
+            names = Arrays.copyOf(names, Math.max(names.length * 2, namesLength + suffixLength));
+        }
+        System.arraycopy(bytes, shared, names, namesLength, suffixLength);
+        nameOffsets[index] = namesLength;
+        sharedPrefixes[index] = (char) shared;
+        namesLength += suffixLength;
+        previousName = bytes;
+    }
+
+    private String nameOf(int index) {
+        final long key = key(index, NAME);
+        if (irregular.containsKey(key)) {
+            return irregular.get(key);
+        }
+        final int restart = index - index % RESTART_INTERVAL;
+        byte[] buffer = new byte[64];
+        int length = 0;
+        for (int i = restart; i <= index; i++) {
+            final int start = nameOffsets[i];
+            final int end = i + 1 < size ? nameOffsets[i + 1] : namesLength;
+            length = sharedPrefixes[i];
+            if (length + end - start > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + end - start));
+            }
+            System.arraycopy(names, start, buffer, length, end - start);
+            length += end - start;
+        }
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void addId(int index, String id) {
+        if (id == null) {
+            return;
+        }
+        try {
+            final UUID uuid = UUID.fromString(id);
+            if (uuid.toString().equals(id)) {
+                uuids.set(index);
+                idHigh[index] = uuid.getMostSignificantBits();
+                idLow[index] = uuid.getLeastSignificantBits();
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            // not a UUID; kept as it is
+        }
+        irregular.put(key(index, ID), id);
+    }
+
+    private String idOf(int index) {
+        return uuids.get(index)
+                ? new UUID(idHigh[index], idLow[index]).toString()
+                : irregular.get(key(index, ID));
+    }
+
+    /**
+     * eTags look like "\"5f2b51ca2fdc5baa31ec02e002f69aec\"", or, for multipart uploads,
+     * "\"88c163864a2335ddbc8d6132a4db382c-1\"", quotes included.
+     */
+    private void addETag(int index, String eTag) {
+        if (eTag != null && eTag.length() >= 34 && eTag.charAt(0) == '"' && eTag.charAt(eTag.length() - 1) == '"') {
+            final long high = parseHex(eTag, 1);
+            final long low = parseHex(eTag, 17);
+            final int parts = eTag.length() == 34 ? 0 : parsePartCount(eTag);
+            if (high != IRREGULAR && low != IRREGULAR && parts >= 0 && eTagOf(high, low, parts).equals(eTag)) {
+                eTagHigh[index] = high;
+                eTagLow[index] = low;
+                eTagParts[index] = parts;
+                return;
+            }
+        }
+        eTagParts[index] = -1;
+        irregular.put(key(index, E_TAG), eTag);
+    }
+
+    private String eTagOf(int index) {
+        return eTagParts[index] < 0
+                ? irregular.get(key(index, E_TAG))
+                : eTagOf(eTagHigh[index], eTagLow[index], eTagParts[index]);
+    }
+
+    private static String eTagOf(long high, long low, int parts) {
+        final StringBuilder eTag = new StringBuilder(46).append('"');
+        appendHex(eTag, high);
+        appendHex(eTag, low);
+        if (parts > 0) {
+            eTag.append('-').append(parts);
+        }
+        return eTag.append('"').toString();
+    }
+
+    private static long parseHex(String s, int from) {
+        long value = 0;
+        for (int i = from; i < from + 16; i++) {
+            final char c = s.charAt(i);
+            final int digit = c >= '0' && c <= '9' ? c - '0' : c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+            if (digit < 0) {
+                return IRREGULAR;
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private static void appendHex(StringBuilder sb, long value) {
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            sb.append(Character.forDigit((int) (value >>> shift) & 0xf, 16));
+        }
+    }
+
+    private static int parsePartCount(String eTag) {
+        if (eTag.charAt(33) != '-' || eTag.length() > 44) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(eTag, 34, eTag.length() - 1, 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private long toEpochMillis(int index, int field, String timestamp) {
+        if (timestamp != null) {
+            try {
+                final long millis = Instant.from(TIMESTAMP.parse(timestamp)).toEpochMilli();
+                if (millis != IRREGULAR && TIMESTAMP.format(Instant.ofEpochMilli(millis)).equals(timestamp)) {
+                    return millis;
+                }
+            } catch (DateTimeParseException e) {
+                // in another format; kept as it is
+            }
+        }
+        irregular.put(key(index, field), timestamp);
+        return IRREGULAR;
+    }
+
+    private String toTimestamp(int index, int field, long millis) {
+        return millis == IRREGULAR
+                ? irregular.get(key(index, field))
+                : TIMESTAMP.format(Instant.ofEpochMilli(millis));
+    }
+
+    private static long key(int index, int field) {
+        return (long) index << 3 | field;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > nameOffsets.length) {
+            resize(Math.max(capacity, nameOffsets.length + (nameOffsets.length >> 1)));
+        }
+    }
+
+    private void resize(int capacity) {
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        sharedPrefixes = Arrays.copyOf(sharedPrefixes, capacity);
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        updatedAt = Arrays.copyOf(updatedAt, capacity);
+        lastAccessedAt = Arrays.copyOf(lastAccessedAt, capacity);
+        eTagHigh = Arrays.copyOf(eTagHigh, capacity);
+        eTagLow = Arrays.copyOf(eTagLow, capacity);
+        eTagParts = Arrays.copyOf(eTagParts, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        mimeTypes = Arrays.copyOf(mimeTypes, capacity);
+        cacheControls = Arrays.copyOf(cacheControls, capacity);
+        lastModified = Arrays.copyOf(lastModified, capacity);
+        contentLengths = Arrays.copyOf(contentLengths, capacity);
+        httpStatusCodes = Arrays.copyOf(httpStatusCodes, capacity);
+    }
+
+    /**
+     * The distinct values of a column that has few of them; -1 stands for null.
+     */
+    private static final class Dictionary {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        int idOf(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return ids.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        String valueOf(int id) {
+            return id < 0 ? null : values.get(id);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package dev.alexmiloeski.supabasestorageclient.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * One entry of a file listing, kept as the slice of the response's JSON it came in and
+ * decoded only as far as it's read. Each accessor scans the slice's bytes for its own field,
+ * stepping over the others without decoding or allocating anything, so a scan that reads the
+ * name and size of every entry doesn't pay for the timestamps, eTag and the rest. Nothing is
+ * cached: each call decodes its field again, so keep the values you need more than once.
+ * <br>All the entries of a listing share the response's bytes, which stay in memory as long
+ * as any of them does. {@link #toFileObject()} decodes an entry fully.
+ * <br>The numeric accessors return 0 for folders, which have no metadata.
+ */
+public final class LazyFileObject {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final byte[] ID = ascii("id");
+    private static final byte[] NAME = ascii("name");
+    private static final byte[] CREATED_AT = ascii("created_at");
+    private static final byte[] UPDATED_AT = ascii("updated_at");
+    private static final byte[] LAST_ACCESSED_AT = ascii("last_accessed_at");
+    private static final byte[] METADATA = ascii("metadata");
+    private static final byte[] E_TAG = ascii("eTag");
+    private static final byte[] SIZE = ascii("size");
+    private static final byte[] MIMETYPE = ascii("mimetype");
+    private static final byte[] CACHE_CONTROL = ascii("cacheControl");
+    private static final byte[] LAST_MODIFIED = ascii("lastModified");
+    private static final byte[] CONTENT_LENGTH = ascii("contentLength");
+    private static final byte[] HTTP_STATUS_CODE = ascii("httpStatusCode");
+
+    private final byte[] json;
+    private final int offset;
+    private final int length;
+
+    /**
+     * @param json the bytes of the response, which must not be modified afterwards
+     * @param offset where the entry's JSON object starts
+     * @param length how many bytes the entry's JSON object takes
+     */
+    public LazyFileObject(byte[] json, int offset, int length) {
+        this.json = json;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public String id() {
+        return textAt(seek(offset, ID));
+    }
+
+    public String name() {
+        return textAt(seek(offset, NAME));
+    }
+
+    public Instant createdAt() {
+        return instant(textAt(seek(offset, CREATED_AT)));
+    }
+
+    public Instant updatedAt() {
+        return instant(textAt(seek(offset, UPDATED_AT)));
+    }
+
+    public Instant lastAccessedAt() {
+        return instant(textAt(seek(offset, LAST_ACCESSED_AT)));
+    }
+
+    /**
+     * @return whether the entry has metadata, which only files have; folders don't
+     */
+    public boolean hasMetadata() {
+        return metadata() >= 0;
+    }
+
+    public String eTag() {
+        return textAt(seekInMetadata(E_TAG));
+    }
+
+    public long size() {
+        return longAt(seekInMetadata(SIZE));
+    }
+
+    public String mimetype() {
+        return textAt(seekInMetadata(MIMETYPE));
+    }
+
+    public String cacheControl() {
+        return textAt(seekInMetadata(CACHE_CONTROL));
+    }
+
+    public Instant lastModified() {
+        return instant(textAt(seekInMetadata(LAST_MODIFIED)));
+    }
+
+    public long contentLength() {
+        return longAt(seekInMetadata(CONTENT_LENGTH));
+    }
+
+    public int httpStatusCode() {
+        return (int) longAt(seekInMetadata(HTTP_STATUS_CODE));
+    }
+
+    /**
+     * @return the entry with all its fields decoded
+     */
+    public FileObject toFileObject() {
+        FileObject.Metadata metadata = null;
+        if (hasMetadata()) {
+            metadata = new FileObject.Metadata(eTag(), size(), mimetype(), cacheControl(),
+                    textAt(seekInMetadata(LAST_MODIFIED)), contentLength(), httpStatusCode());
+        }
+        return new FileObject(id(), name(), textAt(seek(offset, CREATED_AT)), textAt(seek(offset, UPDATED_AT)),
+                textAt(seek(offset, LAST_ACCESSED_AT)), metadata);
+    }
+
+    /**
+     * @return the entry's JSON, as it was received
+     */
+    @Override
+    public String toString() {
+        return new String(json, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return where the metadata object starts, or -1 if there isn't one
+     */
+    private int metadata() {
+        final int value = seek(offset, METADATA);
+        return value >= 0 && json[value] == '{' ? value : -1;
+    }
+
+    private int seekInMetadata(byte[] field) {
+        final int metadata = metadata();
+        return metadata < 0 ? -1 : seek(metadata, field);
+    }
+
+    /**
+     * Finds a field of the object that starts at the given position. The slice has already
+     * been checked to be well-formed JSON when the listing was split into entries, so this
+     * only has to step over values, not validate them. Field names are compared as they're
+     * written; the server doesn't escape any of the ones we look for.
+     * @return where the field's value starts, or -1 if the object doesn't have the field
+     */
+    private int seek(int object, byte[] field) {
+        int i = skipWhitespace(object + 1);
+        while (json[i] == '"') {
+            final int nameEnd = skipString(i);
+            final boolean found = nameEquals(i + 1, nameEnd - 1, field);
+            i = skipWhitespace(skipWhitespace(nameEnd) + 1);
+            if (found) {
+                return i;
+            }
+            i = skipWhitespace(skipValue(i));
+            if (json[i] == ',') {
+                i = skipWhitespace(i + 1);
+            }
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int from, int to, byte[] field) {
+        return Arrays.equals(json, from, to, field, 0, field.length);
+    }
+
+    private int skipWhitespace(int i) {
+        while (json[i] == ' ' || json[i] == '\n' || json[i] == '\r' || json[i] == '\t') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @param i where a string's opening quote is
+     * @return the position right after its closing quote
+     */
+    private int skipString(int i) {
+        i++;
+        while (json[i] != '"') {
+            i += json[i] == '\\' ? 2 : 1;
+        }
+        return i + 1;
+    }
+
+    /**
+     * @return the position right after the value that starts at i
+     */
+    private int skipValue(int i) {
+        if (json[i] == '"') {
+            return skipString(i);
+        }
+        if (json[i] == '{' || json[i] == '[') {
+            int depth = 0;
+            do {
+                if (json[i] == '"') {
+                    i = skipString(i);
+                    continue;
+                }
+                if (json[i] == '{' || json[i] == '[') {
+                    depth++;
+                } else if (json[i] == '}' || json[i] == ']') {
+                    depth--;
+                }
+                i++;
+            } while (depth > 0);
+            return i;
+        }
+        while (json[i] != ',' && json[i] != '}' && json[i] != ']'
+                && json[i] != ' ' && json[i] != '\n' && json[i] != '\r' && json[i] != '\t') {
+            i++;
+        }
+        return i;
+    }
+
+    private String textAt(int value) {
+        if (value < 0 || json[value] != '"') {
+            return null;
+        }
+        final int end = skipString(value);
+        for (int i = value + 1; i < end - 1; i++) {
+            if (json[i] == '\\') {
+                return parsedText(value, end);
+            }
+        }
+        return new String(json, value + 1, end - value - 2, StandardCharsets.UTF_8);
+    }
+
+    private long longAt(int value) {
+        if (value < 0 || json[value] == 'n') {
+            return 0;
+        }
+        final int end = skipValue(value);
+        final boolean negative = json[value] == '-';
+        long result = 0;
+        for (int i = negative ? value + 1 : value; i < end; i++) {
+            if (json[i] < '0' || json[i] > '9' || result > Long.MAX_VALUE / 10 - 1) {
+                // a fraction, an exponent, a quoted number or a huge one
+                return parsedLong(value, end);
+            }
+            result = result * 10 + (json[i] - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    // the slow paths, for values that aren't written the usual way
+
+    private String parsedText(int from, int to) {
+        try (JsonParser parser = JSON.createParser(json, from, to - from)) {
+            parser.nextToken();
+            return parser.getValueAsString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long parsedLong(int from, int to) {
+        try (JsonParser parser = JSON.createParser(json, from, to - from)) {
+            parser.nextToken();
+            return parser.getValueAsLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Instant instant(String timestamp) {
+        return timestamp == null ? null : Instant.parse(timestamp);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
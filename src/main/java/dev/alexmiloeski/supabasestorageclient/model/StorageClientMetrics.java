@@ -0,0 +1,12 @@
+package dev.alexmiloeski.supabasestorageclient.model;
+
+/**
+ * A snapshot of the state of a {@code StorageClient}.
+ * @param concurrencyLimit how many requests the adaptive concurrency limiter currently lets
+ *                         through at once, or 0 if it's off
+ * @param inFlightRequests how many requests are being sent or awaiting their response headers,
+ *                         as counted by the adaptive concurrency limiter, or 0 if it's off
+ * @param coalescedRequests how many reads so far weren't sent, but got the response of an
+ *                          identical read that was already in flight
+ */
+public record StorageClientMetrics(int concurrencyLimit, int inFlightRequests, long coalescedRequests) {}
@@ -0,0 +1,39 @@
+package dev.alexmiloeski.supabasestorageclient.model.options;
+
+/**
+ * Lets a {@code StorageClient} find out by itself how many requests it can have in flight.
+ * The limit grows by about one for every round of requests that fully uses it, as long as
+ * latency stays close to the lowest seen so far, and it's multiplied by {@code backoffRatio}
+ * when a response is a 429 or 503, a request times out or its connection fails, or the
+ * latency grows past {@code latencyTolerance} times that baseline (additive increase,
+ * multiplicative decrease). Requests over the limit wait for a slot.
+ * @param initialLimit the limit to start from
+ * @param minLimit the limit never drops below this
+ * @param maxLimit the limit never grows above this
+ * @param backoffRatio what the limit is multiplied by on congestion, between 0 and 1
+ * @param latencyTolerance how many times the baseline latency counts as congestion; above 1
+ */
+public record AdaptiveConcurrency(int initialLimit, int minLimit, int maxLimit,
+                                  double backoffRatio, double latencyTolerance) {
+    private static final AdaptiveConcurrency DEFAULTS = new AdaptiveConcurrency(20, 1, 200, 0.9, 2.0);
+
+    public AdaptiveConcurrency {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("The limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (!(backoffRatio > 0 && backoffRatio < 1)) {
+            throw new IllegalArgumentException("The backoff ratio must be between 0 and 1");
+        }
+        if (!(latencyTolerance > 1)) {
+            throw new IllegalArgumentException("The latency tolerance must be above 1");
+        }
+    }
+
+    /**
+     * Starts at 20 requests in flight, between 1 and 200, cuts the limit by 10% on congestion
+     * and treats twice the baseline latency as congestion.
+     */
+    public static AdaptiveConcurrency defaults() {
+        return DEFAULTS;
+    }
+}
@@ -0,0 +1,31 @@
+package dev.alexmiloeski.supabasestorageclient.model.options;
+
+import java.time.Duration;
+
+/**
+ * Stops a {@code StorageClient} from sending requests while the server is down. After
+ * {@code failureThreshold} failures in a row (I/O errors, including timeouts, or 5xx responses)
+ * the circuit opens: requests are rejected right away, with an exception in their
+ * {@code ResponseWrapper}, and the health endpoint is checked in the background every
+ * {@code probeInterval}. The circuit closes when a health check reports the server as healthy,
+ * including one made through {@code isHealthy()}.
+ * @param failureThreshold how many failures in a row open the circuit
+ * @param probeInterval how often the health endpoint is checked while the circuit is open
+ */
+public record CircuitBreakerPolicy(int failureThreshold, Duration probeInterval) {
+    public CircuitBreakerPolicy {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("The failure threshold must be positive");
+        }
+        if (probeInterval == null || probeInterval.isNegative()) {
+            throw new IllegalArgumentException("The probe interval can't be null or negative");
+        }
+    }
+
+    /**
+     * Opens after 5 failures in a row and checks the health every second.
+     */
+    public static CircuitBreakerPolicy defaults() {
+        return new CircuitBreakerPolicy(5, Duration.ofSeconds(1));
+    }
+}
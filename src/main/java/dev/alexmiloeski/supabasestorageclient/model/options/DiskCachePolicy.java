@@ -0,0 +1,38 @@
+package dev.alexmiloeski.supabasestorageclient.model.options;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * A disk tier under the download cache (see {@link DownloadCachePolicy}), which survives
+ * restarts. Files are stored once per ETag, so identical files under different paths share
+ * the space, and an index maps each bucket/path to its ETag, size and last access. Like the
+ * in-memory tier, a file on disk is revalidated with If-None-Match on every read, and read
+ * back (and kept in memory again) when the server answers 304 Not Modified.
+ * <br>The size bound is enforced by a background sweeper, which evicts the least recently
+ * used files and saves the index; in between sweeps the cache may grow past it.
+ * @param directory where the files and the index are kept; created if it doesn't exist.
+ *                  It must not be shared by clients that are open at the same time
+ * @param maxBytes the most bytes of file contents kept after a sweep
+ * @param sweepInterval how often the sweeper runs
+ */
+public record DiskCachePolicy(Path directory, long maxBytes, Duration sweepInterval) {
+    public DiskCachePolicy {
+        if (directory == null) {
+            throw new IllegalArgumentException("The cache directory can't be null");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("The cache size must be positive");
+        }
+        if (sweepInterval == null || sweepInterval.isZero() || sweepInterval.isNegative()) {
+            throw new IllegalArgumentException("The sweep interval must be positive");
+        }
+    }
+
+    /**
+     * Up to the given size in the given directory, swept every minute.
+     */
+    public DiskCachePolicy(Path directory, long maxBytes) {
+        this(directory, maxBytes, Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,42 @@
+package dev.alexmiloeski.supabasestorageclient.model.options;
+
+/**
+ * An in-memory cache of downloaded files (downloading as a String or bytes), keyed by bucket
+ * and path. A cached file is revalidated on every read: the request carries its ETag in
+ * If-None-Match, and when the server answers 304 Not Modified, the cached bytes are used
+ * instead of downloading them again. Files without an ETag aren't cached. Uploading, updating,
+ * moving or deleting a file through the same client drops it from the cache.
+ * @param maxBytes the most bytes of file contents held at once; files bigger than that aren't
+ *                 cached
+ * @param eviction which files make room when the cache is full
+ */
+public record DownloadCachePolicy(long maxBytes, Eviction eviction) {
+    public DownloadCachePolicy {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("The cache size must be positive");
+        }
+        if (eviction == null) {
+            throw new IllegalArgumentException("The eviction policy can't be null");
+        }
+    }
+
+    /**
+     * Up to 64 MiB, evicted with {@link Eviction#W_TINY_LFU}.
+     */
+    public static DownloadCachePolicy defaults() {
+        return new DownloadCachePolicy(64L * 1024 * 1024, Eviction.W_TINY_LFU);
+    }
+
+    public enum Eviction {
+        /**
+         * The least recently used files are evicted first.
+         */
+        LRU,
+        /**
+         * New files go through a small LRU window; leaving it, a file only takes the place of
+         * the least recently used one in the main area if it has been read more often recently.
+         * Files that are read all the time stay cached even when many files are read once.
+         */
+        W_TINY_LFU
+    }
+}
@@ -3,6 +3,7 @@ package dev.alexmiloeski.supabasestorageclient.model.options;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
 <pre>{
@@ -16,8 +17,9 @@ public record FileMoveOptions(@JsonProperty("bucketId") String sourceBucketId,
                               @JsonProperty("sourceKey") String sourceFilePath,
                               @JsonProperty("destinationBucket") String destinationBucketId,
                               @JsonProperty("destinationKey") String destinationFilePath) {
+    private static final ObjectWriter WRITER = new ObjectMapper().writerFor(FileMoveOptions.class);
+
     public String toJson() throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(this);
+        return WRITER.writeValueAsString(this);
     }
 }
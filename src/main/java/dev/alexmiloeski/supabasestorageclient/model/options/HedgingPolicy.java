@@ -0,0 +1,32 @@
+package dev.alexmiloeski.supabasestorageclient.model.options;
+
+import java.time.Duration;
+
+/**
+ * Hedging of small reads (downloading a file as a String or bytes, and getting file info):
+ * when the first attempt hasn't answered after a delay, a duplicate is sent and whichever
+ * answers first is used; the other one is cancelled. The delay is the given percentile of the
+ * latencies seen so far, so only the slowest few requests get a duplicate. With a download
+ * cache, its conditional requests are hedged the same way.
+ * @param percentile the latency percentile to wait for, between 0 and 1 exclusive, e.g. 0.95
+ * @param initialDelay the delay used until enough latencies have been seen
+ * @param minDelay the delay is never shorter than this, so that a very fast server doesn't
+ *                 get every request twice
+ */
+public record HedgingPolicy(double percentile, Duration initialDelay, Duration minDelay) {
+    public HedgingPolicy {
+        if (!(percentile > 0 && percentile < 1)) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 1");
+        }
+        if (initialDelay == null || minDelay == null || initialDelay.isNegative() || minDelay.isNegative()) {
+            throw new IllegalArgumentException("The delays can't be null or negative");
+        }
+    }
+
+    /**
+     * Hedges after the p95 latency, but not sooner than 10 ms; 200 ms until it's known.
+     */
+    public static HedgingPolicy defaults() {
+        return new HedgingPolicy(0.95, Duration.ofMillis(200), Duration.ofMillis(10));
+    }
+}
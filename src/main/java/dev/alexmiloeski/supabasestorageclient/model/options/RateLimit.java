@@ -0,0 +1,18 @@
+package dev.alexmiloeski.supabasestorageclient.model.options;
+
+/**
+ * A token bucket: permits are added at a steady rate, and up to {@code burst} of them can
+ * be saved up while the client is idle and then spent at once.
+ * @param permitsPerSecond the sustained request rate
+ * @param burst how many requests can be sent back to back after an idle period; at least 1
+ */
+public record RateLimit(double permitsPerSecond, int burst) {
+    public RateLimit {
+        if (!(permitsPerSecond > 0) || Double.isInfinite(permitsPerSecond)) {
+            throw new IllegalArgumentException("The rate must be a positive number");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("The burst must be at least 1");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package dev.alexmiloeski.supabasestorageclient.model.options;
+
+import java.time.Duration;
+
+/**
+ * Client-side pacing of requests, so that bursts are smoothed out before the server has to
+ * throttle them with 429s. Metadata calls (bucket operations, listing, file info, deleting
+ * and moving) and data calls (uploads and downloads) have separate budgets. Retries take
+ * permits too. Health checks are never limited.
+ * @param metadata the budget of metadata calls, or null for no limit
+ * @param data the budget of data calls, or null for no limit
+ * @param perBucket when true, every bucket gets its own budgets (calls that aren't about a
+ *                  single bucket, like listing buckets, share one more set); when false, all
+ *                  buckets share one set
+ * @param maxWait how long a request may wait for a permit; one that would have to wait
+ *                longer fails right away with an exception in its {@code ResponseWrapper}.
+ *                Null means waiting as long as it takes.
+ */
+public record RateLimits(RateLimit metadata, RateLimit data, boolean perBucket, Duration maxWait) {
+    private static final RateLimits NONE = new RateLimits(null, null, false, null);
+
+    public RateLimits {
+        if (maxWait != null && maxWait.isNegative()) {
+            throw new IllegalArgumentException("The max wait can't be negative");
+        }
+    }
+
+    /**
+     * No limits; every request is sent right away.
+     */
+    public static RateLimits none() {
+        return NONE;
+    }
+}
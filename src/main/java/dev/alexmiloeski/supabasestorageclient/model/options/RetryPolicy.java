@@ -0,0 +1,46 @@
+package dev.alexmiloeski.supabasestorageclient.model.options;
+
+import java.time.Duration;
+
+/**
+ * How a {@code StorageClient} retries requests that failed for a transient reason: an I/O
+ * error (connection reset or refused, timeout), a 429 Too Many Requests, or a 5xx other than
+ * 501 Not Implemented. Only idempotent requests are retried: GET, PUT, DELETE, upserts and
+ * read-only POSTs like listing files.
+ * <br>Before retry n (counting from 1), the client waits for a random duration between zero
+ * and {@code min(maxBackoff, initialBackoff * 2^(n-1))} ("full jitter"), so that many clients
+ * failing at the same moment don't all come back at the same moment. A Retry-After header
+ * (in seconds) takes precedence, but is also capped at {@code maxBackoff}.
+ * @param maxAttempts the most times a request is sent, including the first; 1 disables retries
+ * @param initialBackoff the upper bound of the wait before the first retry
+ * @param maxBackoff the upper bound of any wait between attempts
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+    private static final RetryPolicy DEFAULTS = new RetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(2));
+    private static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The number of attempts must be positive");
+        }
+        if (initialBackoff == null || maxBackoff == null
+                || initialBackoff.isNegative() || maxBackoff.isNegative()) {
+            throw new IllegalArgumentException("The backoff durations can't be null or negative");
+        }
+    }
+
+    /**
+     * Up to 3 attempts, waiting up to 100 ms before the first retry and up to 2 s before any.
+     * Not applied unless it's set in the client's options; by default requests aren't retried.
+     */
+    public static RetryPolicy defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Every request is sent exactly once.
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+}
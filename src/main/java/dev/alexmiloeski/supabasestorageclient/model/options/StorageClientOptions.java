@@ -0,0 +1,162 @@
+package dev.alexmiloeski.supabasestorageclient.model.options;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Configuration of a {@code StorageClient}. Every option is optional; use
+ * {@link #defaults()} or start from {@link #builder()} and set only what you need.
+ * @param executor runs the HTTP client's internal work and the parsing of responses of the
+ *                 async operations; when null, the client creates (and owns) its own pool for
+ *                 the HTTP work and parses on the common fork-join pool. Streamed listings
+ *                 are never read on it, since the read waits for the HTTP client to deliver
+ *                 more of the response
+ * @param virtualThreads when true, the client creates (and owns) a virtual-thread-per-task
+ *                       executor and uses it like a custom {@code executor}; requires Java 21
+ *                       or later at runtime and can't be combined with {@code executor}
+ * @param retryPolicy how requests that failed for a transient reason are retried; when null,
+ *                    {@link RetryPolicy#none()}, so retries are only made when asked for
+ * @param rateLimits how requests are paced on the client side; when null, {@link RateLimits#none()}
+ * @param adaptiveConcurrency how the number of requests in flight is limited; when null, it isn't
+ * @param hedgingPolicy when small reads are hedged with a duplicate request; when null, they aren't
+ * @param circuitBreaker when requests are rejected without being sent because the server is
+ *                       failing; when null, they never are
+ * @param timeouts how long to wait for the server; when null, {@link Timeouts#defaults()}
+ * @param downloadCache how downloaded files are cached in memory and revalidated; when null,
+ *                      they aren't cached in memory
+ * @param diskCache how downloaded files are cached on disk and revalidated; when null, they
+ *                  aren't cached on disk
+ * @param bucketCacheTtl how long bucket metadata (from getting and listing buckets) is reused
+ *                       before it's requested again; creating, updating and deleting a bucket
+ *                       through the client forgets it right away. Uploads are then checked
+ *                       against their bucket's size limit and allowed MIME types before being
+ *                       sent, and rejected locally like the server would. When null, bucket
+ *                       metadata isn't cached and uploads aren't checked
+ */
+public record StorageClientOptions(Executor executor, boolean virtualThreads, RetryPolicy retryPolicy,
+                                   RateLimits rateLimits, AdaptiveConcurrency adaptiveConcurrency,
+                                   HedgingPolicy hedgingPolicy, CircuitBreakerPolicy circuitBreaker,
+                                   Timeouts timeouts, DownloadCachePolicy downloadCache,
+                                   DiskCachePolicy diskCache, Duration bucketCacheTtl) {
+
+    public StorageClientOptions {
+        if (executor != null && virtualThreads) {
+            throw new IllegalArgumentException("Either set a custom executor or use virtual threads, not both");
+        }
+        if (retryPolicy == null) {
+            retryPolicy = RetryPolicy.none();
+        }
+        if (rateLimits == null) {
+            rateLimits = RateLimits.none();
+        }
+        if (timeouts == null) {
+            timeouts = Timeouts.defaults();
+        }
+        if (bucketCacheTtl != null && (bucketCacheTtl.isZero() || bucketCacheTtl.isNegative())) {
+            throw new IllegalArgumentException("The bucket cache TTL must be positive");
+        }
+    }
+
+    public static StorageClientOptions defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private Executor executor;
+        private boolean virtualThreads;
+        private RetryPolicy retryPolicy;
+        private RateLimits rateLimits;
+        private AdaptiveConcurrency adaptiveConcurrency;
+        private HedgingPolicy hedgingPolicy;
+        private CircuitBreakerPolicy circuitBreaker;
+        private Timeouts timeouts;
+        private DownloadCachePolicy downloadCache;
+        private DiskCachePolicy diskCache;
+        private Duration bucketCacheTtl;
+
+        private Builder() {}
+
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Runs the HTTP client's internal work and the parsing of responses on virtual threads
+         * (Java 21+). The blocking methods of the client don't hold any monitor while waiting
+         * on the network, so they can also be called from virtual threads without pinning
+         * their carrier threads.
+         */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Requests are sent exactly once unless a policy is set; {@link RetryPolicy#defaults()}
+         * is a reasonable one to start from.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public Builder rateLimits(RateLimits rateLimits) {
+            this.rateLimits = rateLimits;
+            return this;
+        }
+
+        /**
+         * Use {@link AdaptiveConcurrency#defaults()} unless there's a reason to tune it.
+         */
+        public Builder adaptiveConcurrency(AdaptiveConcurrency adaptiveConcurrency) {
+            this.adaptiveConcurrency = adaptiveConcurrency;
+            return this;
+        }
+
+        /**
+         * Use {@link HedgingPolicy#defaults()} unless there's a reason to tune it.
+         */
+        public Builder hedgingPolicy(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         * Use {@link CircuitBreakerPolicy#defaults()} unless there's a reason to tune it.
+         */
+        public Builder circuitBreaker(CircuitBreakerPolicy circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        public Builder timeouts(Timeouts timeouts) {
+            this.timeouts = timeouts;
+            return this;
+        }
+
+        public Builder downloadCache(DownloadCachePolicy downloadCache) {
+            this.downloadCache = downloadCache;
+            return this;
+        }
+
+        public Builder diskCache(DiskCachePolicy diskCache) {
+            this.diskCache = diskCache;
+            return this;
+        }
+
+        public Builder bucketCacheTtl(Duration bucketCacheTtl) {
+            this.bucketCacheTtl = bucketCacheTtl;
+            return this;
+        }
+
+        public StorageClientOptions build() {
+            return new StorageClientOptions(executor, virtualThreads, retryPolicy, rateLimits, adaptiveConcurrency,
+                    hedgingPolicy, circuitBreaker, timeouts, downloadCache, diskCache, bucketCacheTtl);
+        }
+    }
+}
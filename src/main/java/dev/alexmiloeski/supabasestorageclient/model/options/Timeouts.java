@@ -0,0 +1,39 @@
+package dev.alexmiloeski.supabasestorageclient.model.options;
+
+import java.time.Duration;
+
+/**
+ * How long a {@code StorageClient} waits for the server. A timed-out request fails with an
+ * exception in its {@code ResponseWrapper} (and is retried like any other I/O error). For an
+ * overall limit on an operation, including its retries and pages, see
+ * {@code StorageClient.withDeadline}.
+ * @param connect how long to wait for a connection to be established, or null for no limit
+ * @param metadata how long to wait for the response headers of metadata calls (bucket
+ *                 operations, listing, file info, deleting, moving, health checks), or null
+ *                 for no limit
+ * @param download how long to wait for the response headers of downloads, or null for no
+ *                 limit; reading the body of a download isn't limited
+ * <br>Uploads have no timeout of their own. The HTTP client's timeout runs until the response
+ * headers arrive, which for an upload is only after its whole body has been sent, so any
+ * fixed limit would fail (and, if retried, resend) large uploads on slow links. Bound them
+ * with a deadline instead.
+ */
+public record Timeouts(Duration connect, Duration metadata, Duration download) {
+    private static final Timeouts DEFAULTS = new Timeouts(
+            Duration.ofSeconds(10), Duration.ofSeconds(30), Duration.ofMinutes(2));
+
+    public Timeouts {
+        for (Duration timeout : new Duration[]{connect, metadata, download}) {
+            if (timeout != null && (timeout.isZero() || timeout.isNegative())) {
+                throw new IllegalArgumentException("Timeouts must be positive");
+            }
+        }
+    }
+
+    /**
+     * 10 s to connect, 30 s for metadata calls and 2 min for downloads.
+     */
+    public static Timeouts defaults() {
+        return DEFAULTS;
+    }
+}
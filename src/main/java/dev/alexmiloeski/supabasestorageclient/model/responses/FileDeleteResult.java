@@ -0,0 +1,19 @@
+package dev.alexmiloeski.supabasestorageclient.model.responses;
+
+/**
+ * The outcome of deleting one object in a bulk delete.
+ * @param path the object path as it was given
+ * @param deleted whether the server reported the object as deleted; false for objects that
+ *                didn't exist, and for objects whose batch failed
+ * @param errorResponse the error response of the failed batch this object was in, if any
+ * @param exception the exception of the failed batch this object was in, if any
+ */
+public record FileDeleteResult(String path, boolean deleted, ErrorResponse errorResponse, String exception) {
+    public boolean hasError() {
+        return errorResponse != null;
+    }
+
+    public boolean hasException() {
+        return exception != null;
+    }
+}
@@ -0,0 +1,31 @@
+package dev.alexmiloeski.supabasestorageclient.model.responses;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A downloaded file whose body hasn't been read yet. The body is read straight from the
+ * connection, so it should always be closed, preferably with try-with-resources.
+ */
+public record FileStream(int statusCode, Map<String, List<String>> headers, InputStream body)
+        implements AutoCloseable {
+
+    /**
+     * @return the first value of the given header (case-insensitive), or null if it's missing
+     */
+    public String header(String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
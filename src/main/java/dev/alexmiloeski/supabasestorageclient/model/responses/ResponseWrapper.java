@@ -1,6 +1,13 @@
 package dev.alexmiloeski.supabasestorageclient.model.responses;
 
-public record ResponseWrapper<T>(T body, ErrorResponse errorResponse, String exception) {
+/**
+ * @param attempts how many times the request was sent; more than 1 if it was retried
+ */
+public record ResponseWrapper<T>(T body, ErrorResponse errorResponse, String exception, int attempts) {
+    public ResponseWrapper(T body, ErrorResponse errorResponse, String exception) {
+        this(body, errorResponse, exception, 1);
+    }
+
     public boolean hasBody() {
         return body != null;
     }
@@ -0,0 +1,25 @@
+package dev.alexmiloeski.supabasestorageclient.model.responses;
+
+/**
+ * Thrown where a {@link ResponseWrapper} can't be returned, e.g. from the iterator of a lazily
+ * fetched listing. Carries the server's error response, if there was one.
+ */
+public class StorageClientException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final ErrorResponse errorResponse;
+
+    public StorageClientException(String message, ResponseWrapper<?> responseWrapper) {
+        super(message + ": " + (responseWrapper.hasError()
+                ? responseWrapper.errorResponse().message()
+                : responseWrapper.exception()));
+        this.errorResponse = responseWrapper.errorResponse();
+    }
+
+    /**
+     * @return the server's error response, or null if the request failed without one
+     */
+    public ErrorResponse getErrorResponse() {
+        return errorResponse;
+    }
+}
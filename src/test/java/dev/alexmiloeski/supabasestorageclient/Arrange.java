@@ -10,6 +10,7 @@ import org.mockito.ArgumentMatcher;
 
 import java.net.http.HttpClient;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -138,18 +139,35 @@ public class Arrange {
         return """
                 {"message":"%s"}""".formatted(successfullyEmptied);
     }
+    static String LIST_FILES_JSON_RESPONSE(String... fileNames) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < fileNames.length; i++) {
+            if (i > 0) json.append(',');
+            json.append("""
+                    {"name":"%s","id":"%s","updated_at":"%s","created_at":"%s","last_accessed_at":"%s",\
+                    "metadata":{"eTag":"%s","size":%d,"mimetype":"%s","cacheControl":"%s",\
+                    "lastModified":"%s","contentLength":%d,"httpStatusCode":%d}}"""
+                    .formatted(fileNames[i], TEST_FILE_ID, TEST_DATE, TEST_DATE, TEST_DATE, E_TAG_ACTUAL,
+                            CONTENT_LENGTH, MIME_TYPE, CACHE_CONTROL, TEST_DATE, CONTENT_LENGTH, STATUS_CODE));
+        }
+        return json.append(']').toString();
+    }
     static String NEW_FILE_NAME() {
         return "test-file-" + System.currentTimeMillis();
     }
 
+    static byte[] utf8(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
     public static void mockResponse(HttpClient mockHttpClient,
                                     String httpMethod,
                                     ArgumentMatcher<String> matcher,
                                     int statusCode,
                                     String returnData) {
-        HttpResponse<String> mockResponse = mock(HttpResponse.class);
+        HttpResponse<byte[]> mockResponse = mock(HttpResponse.class);
         when(mockResponse.statusCode()).thenReturn(statusCode);
-        when(mockResponse.body()).thenReturn(returnData);
+        when(mockResponse.body()).thenReturn(utf8(returnData));
         try {
             when(mockHttpClient.send(
                     argThat(request -> matcher.matches(request.uri().toString()) && request.method().equals(httpMethod)),
@@ -163,9 +181,9 @@ public class Arrange {
 
     public static void mockResponse(HttpClient mockHttpClient,
                                     String httpMethod, ArgumentMatcher<String> matcher, String returnData) {
-        HttpResponse<String> mockResponse = mock(HttpResponse.class);
+        HttpResponse<byte[]> mockResponse = mock(HttpResponse.class);
         when(mockResponse.statusCode()).thenReturn(200);
-        when(mockResponse.body()).thenReturn(returnData);
+        when(mockResponse.body()).thenReturn(utf8(returnData));
         try {
             when(mockHttpClient.send(
                     argThat(request -> matcher.matches(request.uri().toString()) && request.method().equalsIgnoreCase(httpMethod)),
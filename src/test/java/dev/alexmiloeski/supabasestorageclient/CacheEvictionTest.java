@@ -0,0 +1,83 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheEvictionTest {
+
+    @Test
+    void lruEvictsTheLeastRecentlyUsedKeysUntilTheWeightFits() {
+        final LruEviction eviction = new LruEviction(300);
+        eviction.add("a", 100);
+        eviction.add("b", 100);
+        eviction.add("c", 100);
+        eviction.onHit("a");
+
+        assertEquals(List.of("b", "c"), eviction.add("d", 200));
+    }
+
+    @Test
+    void lruEvictsKeysHeavierThanTheBound() {
+        final LruEviction eviction = new LruEviction(300);
+
+        assertEquals(List.of("big"), eviction.add("big", 301));
+    }
+
+    @Test
+    void removedKeysFreeTheirWeight() {
+        final LruEviction eviction = new LruEviction(300);
+        eviction.add("a", 200);
+        eviction.remove("a");
+
+        assertEquals(List.of(), eviction.add("b", 300));
+    }
+
+    @Test
+    void tinyLfuKeepsAFrequentlyReadKeyThroughAScanOfOneTimeKeys() {
+        final TinyLfuEviction eviction = new TinyLfuEviction(1000);
+        eviction.onMiss("hot");
+        eviction.add("hot", 100);
+        for (int i = 0; i < 10; i++) {
+            eviction.onHit("hot");
+        }
+
+        final List<String> evicted = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            eviction.onMiss("cold-" + i);
+            evicted.addAll(eviction.add("cold-" + i, 100));
+        }
+
+        assertFalse(evicted.contains("hot"));
+        assertTrue(evicted.contains("cold-99"));
+    }
+
+    @Test
+    void tinyLfuAdmitsAKeyThatBecameMoreFrequentThanTheVictim() {
+        final TinyLfuEviction eviction = new TinyLfuEviction(300);
+        eviction.onMiss("old");
+        eviction.add("old", 200);
+        for (int i = 0; i < 3; i++) {
+            eviction.onMiss("new");
+        }
+
+        assertEquals(List.of("old"), eviction.add("new", 200));
+    }
+
+    @Test
+    void frequencySketchCountsAndAges() {
+        final TinyLfuEviction.FrequencySketch sketch = new TinyLfuEviction.FrequencySketch(64);
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("key");
+        }
+        assertEquals(15, sketch.frequency("key"));
+
+        for (int i = 0; i < 10 * 64; i++) {
+            sketch.increment("other-" + i);
+        }
+        assertTrue(sketch.frequency("key") < 15);
+    }
+}
@@ -0,0 +1,101 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.ConcurrencyLimiter.Sample;
+import dev.alexmiloeski.supabasestorageclient.model.options.AdaptiveConcurrency;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    final AdaptiveConcurrency config = new AdaptiveConcurrency(4, 2, 6, 0.5, 2.0);
+
+    @Test
+    void requestsOverTheLimitWaitForASlot() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(config);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.acquire().isDone());
+        }
+
+        final CompletableFuture<Void> waiter = limiter.acquire();
+        assertFalse(waiter.isDone());
+
+        limiter.release(System.nanoTime(), Sample.IGNORED);
+        assertTrue(waiter.isDone());
+        assertEquals(4, limiter.inFlight());
+    }
+
+    @Test
+    void blockingAcquireGivesUpWhenOutOfTime() throws InterruptedException {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(config);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.acquireBlocking(Long.MAX_VALUE));
+        }
+
+        assertFalse(limiter.acquireBlocking(TimeUnit.MILLISECONDS.toNanos(50)));
+        assertEquals(4, limiter.inFlight());
+
+        limiter.release(System.nanoTime(), Sample.IGNORED);
+        assertEquals(3, limiter.inFlight());
+        assertTrue(limiter.acquireBlocking(0));
+    }
+
+    @Test
+    void limitGrowsWhileFullyUsedWithFlatLatency() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(config);
+
+        for (int round = 0; round < 20; round++) {
+            final int limit = limiter.limit();
+            for (int i = 0; i < limit; i++) {
+                limiter.acquire();
+            }
+            for (int i = 0; i < limit; i++) {
+                // about 10 ms each
+                limiter.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10), Sample.SUCCESS);
+            }
+        }
+
+        assertEquals(6, limiter.limit());
+    }
+
+    @Test
+    void limitIsCutOnceForABurstOfDroppedRequests() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(config);
+        final long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+
+        for (int i = 0; i < 4; i++) {
+            limiter.release(start, Sample.DROPPED);
+        }
+        assertEquals(2, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void limitIsCutWhenLatencyRises() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(config);
+        limiter.acquire();
+        limiter.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10), Sample.SUCCESS);
+
+        limiter.acquire();
+        limiter.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(30), Sample.SUCCESS);
+
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void classifiesSamples() {
+        assertEquals(Sample.DROPPED, ConcurrencyLimiter.sampleOf(429));
+        assertEquals(Sample.DROPPED, ConcurrencyLimiter.sampleOf(503));
+        assertEquals(Sample.SUCCESS, ConcurrencyLimiter.sampleOf(404));
+        assertEquals(Sample.DROPPED, ConcurrencyLimiter.sampleOf(new CompletionException(new IOException())));
+        assertEquals(Sample.IGNORED, ConcurrencyLimiter.sampleOf(new IllegalStateException()));
+    }
+}
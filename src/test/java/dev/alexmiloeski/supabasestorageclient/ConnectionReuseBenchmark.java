@@ -0,0 +1,65 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.alexmiloeski.supabasestorageclient.model.responses.ResponseWrapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a health check made through a fresh HttpClient per request (the old behaviour)
+ * with one made through the transport shared by a StorageClient, against a local stub server.
+ * Run it as the README describes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionReuseBenchmark {
+    private static final byte[] HEALTHY = "{\"healthy\":true}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private String apiUrl;
+    private StorageClient storageClient;
+
+    @Setup
+    public void setUp() throws IOException {
+        // without it the stub's split header/body writes hit Nagle + delayed ACK on kept-alive connections
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/storage/v1/health", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, HEALTHY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(HEALTHY);
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        apiUrl = "http://localhost:" + server.getAddress().getPort();
+        storageClient = new StorageClient("any", "key");
+    }
+
+    @TearDown
+    public void tearDown() {
+        storageClient.close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public ResponseWrapper<String> newHttpClientPerRequest() {
+        return new RequestMaker(apiUrl, "key").path("health").make();
+    }
+
+    @Benchmark
+    public ResponseWrapper<String> sharedTransport() {
+        return new RequestMaker(apiUrl, "key", storageClient.transport).path("health").make();
+    }
+}
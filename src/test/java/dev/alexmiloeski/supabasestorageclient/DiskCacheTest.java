@@ -0,0 +1,102 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.DiskCachePolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storedFileIsReadBackUnderItsETag() {
+        try (DiskCache cache = new DiskCache(policy(1024))) {
+            cache.store("bucket/a", "\"v1\"", new byte[]{1, 2, 3});
+
+            assertEquals("\"v1\"", cache.eTagOf("bucket/a"));
+            assertArrayEquals(new byte[]{1, 2, 3}, cache.read("bucket/a", "\"v1\""));
+            assertNull(cache.read("bucket/a", "\"v2\""));
+            assertNull(cache.eTagOf("bucket/b"));
+        }
+    }
+
+    @Test
+    void indexSurvivesARestart() {
+        try (DiskCache cache = new DiskCache(policy(1024))) {
+            cache.store("bucket/a", "\"v1\"", new byte[]{1, 2, 3});
+        }
+
+        try (DiskCache cache = new DiskCache(policy(1024))) {
+            assertArrayEquals(new byte[]{1, 2, 3}, cache.read("bucket/a", "\"v1\""));
+        }
+    }
+
+    @Test
+    void filesWithTheSameETagShareTheirContents() throws IOException {
+        try (DiskCache cache = new DiskCache(policy(1024))) {
+            cache.store("bucket/a", "\"same\"", new byte[]{1, 2, 3});
+            cache.store("bucket/b", "\"same\"", new byte[]{1, 2, 3});
+
+            assertEquals(1, countObjects());
+            assertArrayEquals(new byte[]{1, 2, 3}, cache.read("bucket/b", "\"same\""));
+        }
+    }
+
+    @Test
+    void sweepEvictsTheLeastRecentlyReadFilesAndDeletesTheirContents() throws IOException, InterruptedException {
+        try (DiskCache cache = new DiskCache(policy(250))) {
+            cache.store("bucket/a", "\"a\"", new byte[100]);
+            Thread.sleep(5);
+            cache.store("bucket/b", "\"b\"", new byte[100]);
+            Thread.sleep(5);
+            cache.read("bucket/a", "\"a\"");
+            Thread.sleep(5);
+            cache.store("bucket/c", "\"c\"", new byte[100]);
+
+            cache.sweep();
+
+            assertNull(cache.eTagOf("bucket/b"));
+            assertNotNull(cache.eTagOf("bucket/a"));
+            assertNotNull(cache.eTagOf("bucket/c"));
+            assertEquals(2, countObjects());
+        }
+    }
+
+    @Test
+    void invalidatedFileIsGoneAndMissingContentsDropTheEntry() throws IOException {
+        try (DiskCache cache = new DiskCache(policy(1024))) {
+            cache.store("bucket/a", "\"a\"", new byte[]{1});
+            cache.store("bucket/b", "\"b\"", new byte[]{2});
+            cache.invalidate("bucket/a");
+            cache.sweep();
+            try (Stream<Path> objects = Files.list(directory.resolve("objects"))) {
+                for (Path object : objects.toList()) {
+                    Files.delete(object);
+                }
+            }
+
+            assertNull(cache.eTagOf("bucket/a"));
+            assertNull(cache.read("bucket/b", "\"b\""));
+            assertEquals(0, cache.entryCount());
+        }
+    }
+
+    private DiskCachePolicy policy(long maxBytes) {
+        return new DiskCachePolicy(directory, maxBytes, Duration.ofHours(1));
+    }
+
+    private long countObjects() throws IOException {
+        try (Stream<Path> objects = Files.list(directory.resolve("objects"))) {
+            return objects.count();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.HedgingPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgerTest {
+
+    final HedgingPolicy policy = new HedgingPolicy(0.9, Duration.ofMillis(200), Duration.ofMillis(5));
+
+    @Test
+    void usesInitialDelayUntilEnoughLatenciesAreKnown() {
+        final Hedger hedger = new Hedger(policy);
+        for (int i = 0; i < 10; i++) {
+            hedger.record(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), hedger.delayNanos());
+    }
+
+    @Test
+    void delayIsThePercentileOfRecentLatencies() {
+        final Hedger hedger = new Hedger(policy);
+        for (int i = 1; i <= 100; i++) {
+            hedger.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(90), hedger.delayNanos());
+    }
+
+    @Test
+    void delayIsNeverBelowTheMinimum() {
+        final Hedger hedger = new Hedger(policy);
+        for (int i = 0; i < 100; i++) {
+            hedger.record(1000);
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), hedger.delayNanos());
+    }
+
+    @Test
+    void onlyTheMostRecentLatenciesCount() {
+        final Hedger hedger = new Hedger(policy);
+        for (int i = 0; i < 1000; i++) {
+            hedger.record(TimeUnit.SECONDS.toNanos(1));
+        }
+        for (int i = 0; i < 256; i++) {
+            hedger.record(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), hedger.delayNanos());
+    }
+}
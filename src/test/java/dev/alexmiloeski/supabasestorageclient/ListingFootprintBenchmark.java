@@ -0,0 +1,95 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.CompactFileListing;
+import dev.alexmiloeski.supabasestorageclient.model.FileObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares how much heap a large listing retains when held as a list of {@link FileObject}s
+ * with how much it retains in a {@link CompactFileListing}. The entries are made up to look
+ * like a real bucket: sorted paths in a few folders, UUIDs, random eTags and a handful of
+ * MIME types. The retainedBytesPerFile counter is the result; the time is just how long
+ * building the listing took. Run it as the README describes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+// the footprint doesn't vary between runs, and the counter would add up over several iterations
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ListingFootprintBenchmark {
+    private static final String[] MIME_TYPES = {"image/jpeg", "image/png", "application/pdf", "text/plain"};
+    private static final long EPOCH_2024 = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    @Param({"1000000"})
+    public int files;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long retainedBytesPerFile;
+    }
+
+    @Benchmark
+    public List<FileObject> listOfRecords(Footprint footprint) {
+        final long before = usedHeapAfterGc();
+        final List<FileObject> listing = new ArrayList<>(files);
+        final SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < files; i++) {
+            listing.add(fileObject(i, random));
+        }
+        footprint.retainedBytesPerFile = (usedHeapAfterGc() - before) / files;
+        return listing;
+    }
+
+    @Benchmark
+    public CompactFileListing compactListing(Footprint footprint) {
+        final long before = usedHeapAfterGc();
+        final CompactFileListing listing = new CompactFileListing();
+        final SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < files; i++) {
+            listing.add(fileObject(i, random));
+        }
+        listing.trimToSize();
+        footprint.retainedBytesPerFile = (usedHeapAfterGc() - before) / files;
+        return listing;
+    }
+
+    /**
+     * A new set of Strings per entry, like the ones the JSON parser creates.
+     */
+    private static FileObject fileObject(int i, SplittableRandom random) {
+        final String timestamp = Instant.ofEpochMilli(EPOCH_2024 + random.nextLong(31_536_000_000L)).toString();
+        final byte[] md5 = new byte[16];
+        random.nextBytes(md5);
+        final long size = random.nextLong(1, 10_000_000);
+        return new FileObject(
+                new UUID(random.nextLong(), random.nextLong()).toString(),
+                "photos/%04d/IMG_%08d.jpg".formatted(i / 10_000, i),
+                copy(timestamp), copy(timestamp), copy(timestamp),
+                new FileObject.Metadata("\"" + HexFormat.of().formatHex(md5) + "\"", size,
+                        copy(MIME_TYPES[random.nextInt(MIME_TYPES.length)]), copy("max-age=3600"),
+                        copy(timestamp), size, 200));
+    }
+
+    private static String copy(String s) {
+        return new String(s.toCharArray());
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
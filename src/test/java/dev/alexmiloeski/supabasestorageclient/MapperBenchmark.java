@@ -0,0 +1,68 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import dev.alexmiloeski.supabasestorageclient.model.FileObject;
+import dev.alexmiloeski.supabasestorageclient.model.LazyFileObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares reading a listing of files the old way (the body decoded into a String, then
+ * parsed with a reader looked up per call) with reading it straight from the bytes it
+ * arrived in with a prebuilt reader. The *Sizes benchmarks add up the sizes of all the
+ * files, once from fully decoded entries and once from lazily decoded ones. Run it as the
+ * README describes, with the GC profiler to see the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"10", "1000"})
+    public int files;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        body = Arrange.LIST_FILES_JSON_RESPONSE(IntStream.range(0, files)
+                        .mapToObj(i -> "file-" + i + ".txt")
+                        .toArray(String[]::new))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<FileObject> viaString() throws Exception {
+        final String json = new String(body, StandardCharsets.UTF_8);
+        return Mapper.mapper.readValue(json, new TypeReference<>() {});
+    }
+
+    @Benchmark
+    public List<FileObject> fromBytes() {
+        return Mapper.toObjects(body);
+    }
+
+    @Benchmark
+    public long decodedSizes() {
+        long total = 0;
+        for (FileObject fileObject : Mapper.toObjects(body)) {
+            total += fileObject.name().isEmpty() ? 0 : fileObject.metadata().size();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long lazySizes() {
+        long total = 0;
+        for (LazyFileObject fileObject : Mapper.toLazyObjects(body)) {
+            total += fileObject.name().isEmpty() ? 0 : fileObject.size();
+        }
+        return total;
+    }
+}
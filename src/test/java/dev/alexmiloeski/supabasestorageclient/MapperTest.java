@@ -3,10 +3,14 @@ package dev.alexmiloeski.supabasestorageclient;
 import dev.alexmiloeski.supabasestorageclient.model.Bucket;
 import dev.alexmiloeski.supabasestorageclient.model.FileObject;
 import dev.alexmiloeski.supabasestorageclient.model.FileObjectInfo;
+import dev.alexmiloeski.supabasestorageclient.model.LazyFileObject;
+import dev.alexmiloeski.supabasestorageclient.model.options.FileMoveOptions;
 import dev.alexmiloeski.supabasestorageclient.model.responses.ErrorResponse;
 import dev.alexmiloeski.supabasestorageclient.model.responses.FileObjectIdentity;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 
 import static dev.alexmiloeski.supabasestorageclient.Arrange.*;
@@ -27,7 +31,7 @@ class MapperTest {
                   "file_size_limit": 0,
                   "allowed_mime_types": ["image/jpeg"]
                 }""".formatted(testBucketId, testBucketId);
-        Bucket bucket = Mapper.toBucket(json);
+        Bucket bucket = Mapper.toBucket(utf8(json));
         assertNotNull(bucket);
         assertEquals(expectedBucket, bucket);
     }
@@ -42,13 +46,13 @@ class MapperTest {
                   "file_size_limit": ".",
                   "allowed_mime_types": ""
                 }""";
-        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toBucket(json));
+        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toBucket(utf8(json)));
         assertTrue(exception.getMessage().contains("Cannot"));
     }
 
     @Test
     void mapsToBuckets() {
-        final List<Bucket> bucket = Mapper.toBuckets(LIST_BUCKETS_JSON_RESPONSE);
+        final List<Bucket> bucket = Mapper.toBuckets(utf8(LIST_BUCKETS_JSON_RESPONSE));
         assertNotNull(bucket);
         assertEquals(EXPECTED_BUCKETS, bucket);
     }
@@ -63,20 +67,20 @@ class MapperTest {
                   "file_size_limit": ".",
                   "allowed_mime_types": ""
                 }]""";
-        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toBuckets(json));
+        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toBuckets(utf8(json)));
         assertTrue(exception.getMessage().contains("Cannot"));
     }
 
     @Test
     void mapsToObjects() {
-        final List<FileObject> objects = Mapper.toObjects(LIST_FILES_JSON_RESPONSE);
+        final List<FileObject> objects = Mapper.toObjects(utf8(LIST_FILES_JSON_RESPONSE));
         assertNotNull(objects);
         assertEquals(EXPECTED_LIST_FILES_OBJECTS, objects);
     }
 
     @Test
     void mapsToObjectInfo() {
-        final FileObjectInfo objectInfo = Mapper.toObjectInfo(LIST_FILES_JSON_RESPONSE);
+        final FileObjectInfo objectInfo = Mapper.toObjectInfo(utf8(LIST_FILES_JSON_RESPONSE));
         assertNotNull(objectInfo);
         assertEquals(EXPECTED_FILE_OBJECT_INFO, objectInfo);
     }
@@ -92,7 +96,7 @@ class MapperTest {
                     "last_accessed_at": "some-date",
                     "metadata": null
                 }""";
-        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toObjects(json));
+        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toObjects(utf8(json)));
         assertTrue(exception.getMessage().contains("Cannot"));
     }
 
@@ -107,7 +111,7 @@ class MapperTest {
                     "last_accessed_at": "some-date",
                     "metadata": "some-metadata"
                 }]""";
-        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toObjects(json));
+        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toObjects(utf8(json)));
         assertTrue(exception.getMessage().contains("Cannot"));
         assertTrue(exception.getMessage().contains("metadata"));
     }
@@ -119,7 +123,7 @@ class MapperTest {
         final String message = "The resource already exists";
         final String errorJson = """
                 {"statusCode":"%s","error":"%s","message":"%s"}""".formatted(statusCode, error, message);
-        final ErrorResponse errorResponse = Mapper.toErrorResponse(errorJson);
+        final ErrorResponse errorResponse = Mapper.toErrorResponse(utf8(errorJson), 409);
         assertNotNull(errorResponse);
         assertEquals(statusCode, errorResponse.statusCode());
         assertEquals(error, errorResponse.error());
@@ -130,7 +134,7 @@ class MapperTest {
     void throwsWhenMappingBadErrorResponse() {
         final String errorJson = """
                 [{"statusCode":"","error":"","message":""}]""";
-        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toErrorResponse(errorJson));
+        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toErrorResponse(utf8(errorJson), 400));
         assertTrue(exception.getMessage().contains("Cannot"));
     }
 
@@ -138,7 +142,7 @@ class MapperTest {
     void throwsWhenMappingErrorResponseWithAllMissingFields() {
         final String errorJson = """
                 {"anotherField":""}""";
-        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toErrorResponse(errorJson));
+        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toErrorResponse(utf8(errorJson), 400));
         assertTrue(exception.getMessage().contains(MISSING_FIELDS_MESSAGE));
     }
 
@@ -153,7 +157,66 @@ class MapperTest {
                 }""".formatted(key, id);
         final FileObjectIdentity expected = new FileObjectIdentity(key, id);
 
-        FileObjectIdentity actual = Mapper.toIdentity(json);
+        FileObjectIdentity actual = Mapper.toIdentity(utf8(json));
         assertEquals(expected, actual);
     }
+
+    @Test
+    void mapsToMessage() {
+        final String message = "Successfully deleted";
+        assertEquals(message, Mapper.toMessage(utf8(MESSAGE_RESPONSE(message))));
+    }
+
+    @Test
+    void throwsWhenMappingBadMessage() {
+        final String json = """
+                ["Successfully deleted"]""";
+        final Exception exception = assertThrows(RuntimeException.class, () -> Mapper.toMessage(utf8(json)));
+        assertTrue(exception.getMessage().contains("Cannot"));
+    }
+
+    @Test
+    void mapsToHealthy() {
+        assertTrue(Mapper.toHealthy(utf8(HEALTHY_JSON)));
+        assertFalse(Mapper.toHealthy(utf8(UNHEALTHY_JSON)));
+        assertFalse(Mapper.toHealthy(null));
+    }
+
+    @Test
+    void mapsBlankErrorBytesToNoResponse() {
+        final ErrorResponse errorResponse = Mapper.toErrorResponse(utf8(" \n"), 502);
+        assertEquals("502", errorResponse.statusCode());
+        assertEquals("no_response", errorResponse.error());
+    }
+
+    @Test
+    void lazyObjectsDecodeToTheSameFileObjects() {
+        final List<LazyFileObject> lazyObjects = Mapper.toLazyObjects(utf8(LIST_FILES_JSON_RESPONSE));
+
+        assertEquals(EXPECTED_LIST_FILES_OBJECTS, lazyObjects.stream().map(LazyFileObject::toFileObject).toList());
+        final LazyFileObject folder = lazyObjects.get(0);
+        assertEquals(TEST_FOLDER_NAME, folder.name());
+        assertFalse(folder.hasMetadata());
+        assertEquals(0, folder.size());
+        assertEquals(Instant.parse(TEST_DATE), folder.createdAt());
+        final LazyFileObject file = lazyObjects.get(1);
+        assertEquals(TEST_FILE_NAME, file.name());
+        assertEquals(EXPECTED_LIST_FILES_OBJECTS.get(1).metadata().size(), file.size());
+        assertEquals(Instant.parse(TEST_DATE), file.lastModified());
+    }
+
+    @Test
+    void writesRequestBodiesAsTheyWouldBeWrittenAsText() throws Exception {
+        final FileMoveOptions moveOptions = new FileMoveOptions(
+                TEST_BUCKET_ID, "folder/\"quoted\"", TEST_BUCKET_ID, "folder/caf\u00e9");
+
+        assertArrayEquals(moveOptions.toJson().getBytes(StandardCharsets.UTF_8), Mapper.toJsonBytes(moveOptions));
+        assertArrayEquals(new byte[0], Mapper.toJsonBytes(null));
+    }
+
+    @Test
+    void throwsWhenLazyObjectsArentInAnArray() {
+        assertThrows(RuntimeException.class, () -> Mapper.toLazyObjects(utf8(BUCKET_JSON)));
+        assertThrows(RuntimeException.class, () -> Mapper.toLazyObjects(utf8("[1, 2]")));
+    }
 }
@@ -0,0 +1,48 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.alexmiloeski.supabasestorageclient.model.options.FileMoveOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding the move and list request bodies the old way (a String from a new
+ * ObjectMapper per move, or from String.formatted for a listing, then encoded to bytes by
+ * the body publisher) with writing them straight into bytes through the shared writer. Run
+ * it as the README describes, with the GC profiler to see the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBodyBenchmark {
+    private final FileMoveOptions moveOptions = new FileMoveOptions(
+            "test-bucket-5-id", "folder2/empty-file-1", "test-bucket-1", "folder1/empty-file-1");
+    private final String prefix = "folder1";
+
+    @Benchmark
+    public byte[] moveBodyPerCallMapper() throws Exception {
+        return new ObjectMapper().writeValueAsString(moveOptions).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] moveBodySharedWriter() {
+        return Mapper.toJsonBytes(moveOptions);
+    }
+
+    @Benchmark
+    public byte[] listBodyFormatted() {
+        return """
+                {"limit":%d,"offset":%d,"sortBy":{"column":"name","order":"asc"},"prefix":"%s"}"""
+                .formatted(100, 0, prefix).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] listBodySharedWriter() {
+        return Mapper.toJsonBytes(new StorageClient.ListFilesBody(100, 0, StorageClient.SortBy.BY_NAME, prefix));
+    }
+}
@@ -0,0 +1,59 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.RetryPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetriesTest {
+
+    final RetryPolicy retryPolicy = new RetryPolicy(10, Duration.ofMillis(100), Duration.ofMillis(1000));
+
+    @Test
+    void classifiesStatusCodes() {
+        assertTrue(Retries.isRetryable(429));
+        assertTrue(Retries.isRetryable(500));
+        assertTrue(Retries.isRetryable(503));
+        assertFalse(Retries.isRetryable(501));
+        assertFalse(Retries.isRetryable(400));
+        assertFalse(Retries.isRetryable(404));
+        assertFalse(Retries.isRetryable(409));
+    }
+
+    @Test
+    void classifiesExceptions() {
+        assertTrue(Retries.isRetryable(new IOException("Connection reset")));
+        assertTrue(Retries.isRetryable(new HttpTimeoutException("request timed out")));
+        assertTrue(Retries.isRetryable(new CompletionException(new IOException("Connection reset"))));
+        assertFalse(Retries.isRetryable(new IllegalStateException("The storage client has been closed")));
+        assertFalse(Retries.isRetryable(new IllegalArgumentException("File not found")));
+    }
+
+    @Test
+    void backoffIsJitteredBelowAnExponentialCeiling() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(Retries.backoffMillis(retryPolicy, 1, null) <= 100);
+            assertTrue(Retries.backoffMillis(retryPolicy, 3, null) <= 400);
+            assertTrue(Retries.backoffMillis(retryPolicy, 60, null) <= 1000);
+        }
+    }
+
+    @Test
+    void retryAfterHeaderTakesPrecedenceButIsCapped() {
+        assertEquals(0, Retries.backoffMillis(retryPolicy, 1, headers("0")));
+        assertEquals(1000, Retries.backoffMillis(retryPolicy, 1, headers("30")));
+        assertTrue(Retries.backoffMillis(retryPolicy, 1, headers("Wed, 21 Oct 2015 07:28:00 GMT")) <= 100);
+    }
+
+    private static HttpHeaders headers(String retryAfter) {
+        return HttpHeaders.of(Map.of("Retry-After", List.of(retryAfter)), (name, value) -> true);
+    }
+}
@@ -0,0 +1,83 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    void concurrentCallsForTheSameKeyShareOneCall() {
+        final CompletableFuture<String> call = new CompletableFuture<>();
+        final AtomicInteger calls = new AtomicInteger();
+
+        final CompletableFuture<String> first = singleFlight.run("key", () -> {
+            calls.incrementAndGet();
+            return call;
+        });
+        final CompletableFuture<String> second = singleFlight.run("key", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        call.complete("result");
+
+        assertEquals("result", first.join());
+        assertEquals("result", second.join());
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.coalesced());
+    }
+
+    @Test
+    void coalescedCallersGetCopiesOfTheResult() {
+        final CompletableFuture<StringBuilder> call = new CompletableFuture<>();
+
+        final CompletableFuture<StringBuilder> first = singleFlight.run("key", () -> call, StringBuilder::new);
+        final CompletableFuture<StringBuilder> second = singleFlight.run("key", () -> call, StringBuilder::new);
+        call.complete(new StringBuilder("result"));
+        first.join().append(" changed");
+
+        assertEquals("result changed", first.join().toString());
+        assertEquals("result", second.join().toString());
+    }
+
+    @Test
+    void callsAfterCompletionAndForOtherKeysAreMadeAgain() {
+        assertEquals("a", singleFlight.run("key", () -> CompletableFuture.completedFuture("a")).join());
+        assertEquals("b", singleFlight.run("key", () -> CompletableFuture.completedFuture("b")).join());
+        final CompletableFuture<String> pending = singleFlight.run("key", CompletableFuture::new);
+
+        assertEquals("c", singleFlight.run("other", () -> CompletableFuture.completedFuture("c")).join());
+        assertFalse(pending.isDone());
+        assertEquals(0, singleFlight.coalesced());
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotCancelTheSharedCall() {
+        final CompletableFuture<String> call = new CompletableFuture<>();
+        final CompletableFuture<String> first = singleFlight.run("key", () -> call);
+        final CompletableFuture<String> second = singleFlight.run("key", () -> call);
+
+        first.cancel(true);
+        call.complete("result");
+
+        assertFalse(call.isCancelled());
+        assertEquals("result", second.join());
+    }
+
+    @Test
+    void failedCallIsSharedAndForgotten() {
+        final CompletableFuture<String> call = new CompletableFuture<>();
+        final CompletableFuture<String> first = singleFlight.run("key", () -> call);
+        final CompletableFuture<String> second = singleFlight.run("key", () -> call);
+        call.completeExceptionally(new IllegalStateException("failed"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertEquals("a", singleFlight.run("key", () -> CompletableFuture.completedFuture("a")).join());
+    }
+}
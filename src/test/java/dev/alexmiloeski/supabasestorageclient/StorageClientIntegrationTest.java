@@ -1,20 +1,63 @@
 package dev.alexmiloeski.supabasestorageclient;
 
+import com.github.tomakehurst.wiremock.http.Fault;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.sun.net.httpserver.HttpServer;
 import dev.alexmiloeski.supabasestorageclient.model.Bucket;
+import dev.alexmiloeski.supabasestorageclient.model.CompactFileListing;
 import dev.alexmiloeski.supabasestorageclient.model.FileObject;
+import dev.alexmiloeski.supabasestorageclient.model.LazyFileObject;
+import dev.alexmiloeski.supabasestorageclient.model.StorageClientMetrics;
+import dev.alexmiloeski.supabasestorageclient.model.options.AdaptiveConcurrency;
+import dev.alexmiloeski.supabasestorageclient.model.options.CircuitBreakerPolicy;
+import dev.alexmiloeski.supabasestorageclient.model.options.DiskCachePolicy;
+import dev.alexmiloeski.supabasestorageclient.model.options.DownloadCachePolicy;
 import dev.alexmiloeski.supabasestorageclient.model.options.FileMoveOptions;
+import dev.alexmiloeski.supabasestorageclient.model.options.HedgingPolicy;
 import dev.alexmiloeski.supabasestorageclient.model.options.ListFilesOptions;
+import dev.alexmiloeski.supabasestorageclient.model.options.RateLimit;
+import dev.alexmiloeski.supabasestorageclient.model.options.RateLimits;
+import dev.alexmiloeski.supabasestorageclient.model.options.RetryPolicy;
+import dev.alexmiloeski.supabasestorageclient.model.options.StorageClientOptions;
+import dev.alexmiloeski.supabasestorageclient.model.options.Timeouts;
 import dev.alexmiloeski.supabasestorageclient.model.responses.ErrorResponse;
+import dev.alexmiloeski.supabasestorageclient.model.responses.FileDeleteResult;
 import dev.alexmiloeski.supabasestorageclient.model.responses.FileObjectIdentity;
+import dev.alexmiloeski.supabasestorageclient.model.responses.FileStream;
 import dev.alexmiloeski.supabasestorageclient.model.responses.ResponseWrapper;
+import dev.alexmiloeski.supabasestorageclient.model.responses.StorageClientException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
 import static dev.alexmiloeski.supabasestorageclient.Arrange.*;
 import static dev.alexmiloeski.supabasestorageclient.matchers.BodyLengthMatcher.withSizeGreaterThan;
 import static dev.alexmiloeski.supabasestorageclient.matchers.BodyLengthMatcher.withSizeLessThan;
@@ -26,10 +69,11 @@ public class StorageClientIntegrationTest {
     final static String TEST_API_KEY = "testApiKey";
 
     StorageClient storageClient;
+    int port;
 
     @BeforeEach
     void setUp(WireMockRuntimeInfo wmRuntimeInfo) {
-        final int port = wmRuntimeInfo.getHttpPort();
+        port = wmRuntimeInfo.getHttpPort();
         storageClient = new TestStorageClient("any", TEST_API_KEY, port);
     }
 
@@ -248,6 +292,19 @@ public class StorageClientIntegrationTest {
         assertNull(responseWrapper.exception());
     }
 
+    @Test
+    void listFilesInBucketEscapesThePrefix() {
+        final String prefix = "say \"hi\"\\";
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .withRequestBody(matchingJsonPath("$.prefix", equalTo(prefix)))
+                .willReturn(ok().withBody(LIST_FILES_JSON_RESPONSE)));
+
+        final ResponseWrapper<List<FileObject>> responseWrapper = storageClient.listFilesInBucket(
+                TEST_BUCKET_ID, new ListFilesOptions(prefix, null, null));
+
+        assertEquals(EXPECTED_LIST_FILES_OBJECTS, responseWrapper.body());
+    }
+
     @Test
     void listFilesWithWrongParamsReturnsErrorResponse() {
         stubFor(post(OBJECT_PATH + "/list/" + NONEXISTENT_BUCKET_ID)
@@ -259,6 +316,216 @@ public class StorageClientIntegrationTest {
         assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER, responseWrapper);
     }
 
+    @Test
+    void listFilesInBucketLazilyReturnsUndecodedEntries() {
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .willReturn(ok().withBody(LIST_FILES_JSON_RESPONSE)));
+
+        final ResponseWrapper<List<LazyFileObject>> responseWrapper =
+                storageClient.listFilesInBucketLazilyAsync(TEST_BUCKET_ID, null).join();
+
+        assertEquals(EXPECTED_LIST_FILES_OBJECTS,
+                responseWrapper.body().stream().map(LazyFileObject::toFileObject).toList());
+    }
+
+    @Test
+    void listFilesInBucketPassesEachEntryToTheConsumer() {
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .willReturn(ok().withBody(LIST_FILES_JSON_RESPONSE)));
+        final List<FileObject> received = new ArrayList<>();
+
+        final ResponseWrapper<Integer> responseWrapper =
+                storageClient.listFilesInBucket(TEST_BUCKET_ID, null, received::add);
+
+        assertEquals(EXPECTED_LIST_FILES_OBJECTS.size(), responseWrapper.body());
+        assertEquals(EXPECTED_LIST_FILES_OBJECTS, received);
+    }
+
+    @Test
+    void listFilesInBucketAsyncHandsOverEntriesBeforeTheResponseEnds() throws Exception {
+        final String[] names = IntStream.range(0, 200).mapToObj(i -> "file-" + i).toArray(String[]::new);
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .willReturn(ok().withBody(LIST_FILES_JSON_RESPONSE(names)).withChunkedDribbleDelay(10, 2000)));
+        final CountDownLatch firstEntry = new CountDownLatch(1);
+        final List<String> received = new CopyOnWriteArrayList<>();
+
+        final CompletableFuture<ResponseWrapper<Integer>> future = storageClient.listFilesInBucketAsync(
+                TEST_BUCKET_ID, null, fileObject -> {
+                    received.add(fileObject.name());
+                    firstEntry.countDown();
+                });
+
+        assertTrue(firstEntry.await(5, TimeUnit.SECONDS));
+        assertFalse(future.isDone());
+        assertEquals(200, future.join().body());
+        assertEquals(List.of(names), received);
+    }
+
+    @Test
+    void listFilesInBucketAsyncCompletesOnASingleThreadedCustomExecutor() throws Exception {
+        final String[] names = IntStream.range(0, 200).mapToObj(i -> "file-" + i).toArray(String[]::new);
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .willReturn(ok().withBody(LIST_FILES_JSON_RESPONSE(names)).withChunkedDribbleDelay(10, 500)));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final StorageClientOptions options = StorageClientOptions.builder().executor(executor).build();
+
+        try (StorageClient singleThreadedStorageClient = storageClientWith(options)) {
+            final List<CompletableFuture<ResponseWrapper<Integer>>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(singleThreadedStorageClient.listFilesInBucketAsync(TEST_BUCKET_ID, null, fileObject -> {}));
+            }
+
+            for (CompletableFuture<ResponseWrapper<Integer>> future : futures) {
+                assertEquals(200, future.get(10, TimeUnit.SECONDS).body());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void listFilesInBucketReturnsTheConsumersException() {
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .willReturn(ok().withBody(LIST_FILES_JSON_RESPONSE("file-1", "file-2", "file-3"))));
+        final List<FileObject> received = new ArrayList<>();
+
+        final ResponseWrapper<Integer> responseWrapper = storageClient.listFilesInBucket(TEST_BUCKET_ID, null,
+                fileObject -> {
+                    received.add(fileObject);
+                    throw new IllegalStateException("Enough");
+                });
+
+        assertEquals("Enough", responseWrapper.exception());
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void listFilesInBucketWithConsumerReturnsErrorResponse() {
+        stubFor(post(OBJECT_PATH + "/list/" + NONEXISTENT_BUCKET_ID)
+                .willReturn(badRequest().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        final ResponseWrapper<Integer> responseWrapper =
+                storageClient.listFilesInBucket(NONEXISTENT_BUCKET_ID, null, fileObject -> fail());
+
+        assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER.errorResponse(), responseWrapper.errorResponse());
+    }
+
+    @Test
+    void streamFilesFetchesAllPages() {
+        stubListFilesPage(0, LIST_FILES_JSON_RESPONSE("file-1", "file-2"));
+        stubListFilesPage(2, LIST_FILES_JSON_RESPONSE("file-3", "file-4"));
+        stubListFilesPage(4, LIST_FILES_JSON_RESPONSE("file-5"));
+
+        final List<String> names;
+        try (Stream<FileObject> files = storageClient.streamFiles(TEST_BUCKET_ID, TEST_FOLDER_NAME, 2)) {
+            names = files.map(FileObject::name).toList();
+        }
+
+        assertEquals(List.of("file-1", "file-2", "file-3", "file-4", "file-5"), names);
+        verify(3, postRequestedFor(urlEqualTo(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)));
+    }
+
+    @Test
+    void streamFilesStopsAfterEmptyPage() {
+        stubListFilesPage(0, LIST_FILES_JSON_RESPONSE("file-1", "file-2"));
+        stubListFilesPage(2, LIST_FILES_JSON_RESPONSE());
+
+        final long count;
+        try (Stream<FileObject> files = storageClient.streamFiles(TEST_BUCKET_ID, TEST_FOLDER_NAME, 2)) {
+            count = files.count();
+        }
+
+        assertEquals(2, count);
+    }
+
+    @Test
+    void streamFilesThrowsWhenPageFails() {
+        stubListFilesPage(0, LIST_FILES_JSON_RESPONSE("file-1", "file-2"));
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .withRequestBody(matchingJsonPath("$.offset", equalTo("2")))
+                .willReturn(badRequest().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        try (Stream<FileObject> files = storageClient.streamFiles(TEST_BUCKET_ID, TEST_FOLDER_NAME, 2)) {
+            final StorageClientException exception = assertThrows(StorageClientException.class, files::toList);
+            assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER.errorResponse(), exception.getErrorResponse());
+        }
+    }
+
+    @Test
+    void listFilesCompactFetchesAllPages() {
+        stubListFilesPage(0, LIST_FILES_JSON_RESPONSE("file-1", "file-2"));
+        stubListFilesPage(2, LIST_FILES_JSON_RESPONSE("file-3", "file-4"));
+        stubListFilesPage(4, LIST_FILES_JSON_RESPONSE("file-5"));
+
+        final ResponseWrapper<CompactFileListing> responseWrapper =
+                storageClient.listFilesCompact(TEST_BUCKET_ID, TEST_FOLDER_NAME, 2);
+
+        assertEquals(Mapper.toObjects(utf8(LIST_FILES_JSON_RESPONSE("file-1", "file-2", "file-3", "file-4", "file-5"))),
+                responseWrapper.body());
+        assertEquals(3, responseWrapper.attempts());
+    }
+
+    @Test
+    void listFilesCompactReturnsTheFailedPagesError() {
+        stubListFilesPage(0, LIST_FILES_JSON_RESPONSE("file-1", "file-2"));
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .withRequestBody(matchingJsonPath("$.offset", equalTo("2")))
+                .willReturn(badRequest().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        final ResponseWrapper<CompactFileListing> responseWrapper =
+                storageClient.listFilesCompact(TEST_BUCKET_ID, TEST_FOLDER_NAME, 2);
+
+        assertNull(responseWrapper.body());
+        assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER.errorResponse(), responseWrapper.errorResponse());
+    }
+
+    @Test
+    void walkFilesDescendsIntoFoldersAndReturnsFullPaths() {
+        stubListFolderPage("", 0, """
+                [{"name":"a","id":null,"metadata":null},{"name":"b","id":null,"metadata":null}]""");
+        stubListFolderPage("", 2, "[]");
+        stubListFolderPage("a", 0, LIST_FILES_JSON_RESPONSE("file-1", "file-2"));
+        stubListFolderPage("a", 2, LIST_FILES_JSON_RESPONSE("file-3"));
+        stubListFolderPage("b", 0, """
+                [{"name":"c","id":null,"metadata":null}]""");
+        stubListFolderPage("b/c", 0, LIST_FILES_JSON_RESPONSE("file-4"));
+
+        final Set<String> paths;
+        try (Stream<FileObject> files = storageClient.walkFiles(TEST_BUCKET_ID, null, 2, 3)) {
+            paths = files.map(FileObject::name).collect(Collectors.toSet());
+        }
+
+        assertEquals(Set.of("a/file-1", "a/file-2", "a/file-3", "b/c/file-4"), paths);
+    }
+
+    @Test
+    void walkFilesThrowsWhenFolderFails() {
+        stubListFolderPage("", 0, """
+                [{"name":"a","id":null,"metadata":null}]""");
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .withRequestBody(matchingJsonPath("$.prefix", equalTo("a")))
+                .willReturn(badRequest().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        try (Stream<FileObject> files = storageClient.walkFiles(TEST_BUCKET_ID, "", 2, 2)) {
+            final StorageClientException exception = assertThrows(StorageClientException.class, files::toList);
+            assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER.errorResponse(), exception.getErrorResponse());
+        }
+    }
+
+    private void stubListFolderPage(String prefix, int offset, String responseJson) {
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .withRequestBody(matchingJsonPath("$.offset", equalTo(String.valueOf(offset))))
+                .withRequestBody(matchingJsonPath("$.prefix", equalTo(prefix)))
+                .willReturn(ok().withBody(responseJson)));
+    }
+
+    private void stubListFilesPage(int offset, String responseJson) {
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID)
+                .withRequestBody(matchingJsonPath("$.offset", equalTo(String.valueOf(offset))))
+                .withRequestBody(matchingJsonPath("$.prefix", equalTo(TEST_FOLDER_NAME)))
+                .willReturn(ok().withBody(responseJson)));
+    }
+
     @Test
     void downloadFileReturnsFileContents() {
         stubFor(get(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
@@ -309,6 +576,115 @@ public class StorageClientIntegrationTest {
         assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER, responseWrapper);
     }
 
+    @Test
+    void downloadStreamReturnsUnmodifiedBytes() throws IOException {
+        final byte[] binaryContents = {(byte) 0xFF, (byte) 0xD8, 0x00, (byte) 0xC3, 0x28, (byte) 0x80};
+        stubFor(get(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .willReturn(ok().withHeader("Content-Type", "image/jpeg").withBody(binaryContents)));
+
+        final ResponseWrapper<FileStream> responseWrapper =
+                storageClient.downloadStream(TEST_BUCKET_ID, TEST_FILE_NAME);
+
+        assertNotNull(responseWrapper);
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+        try (FileStream fileStream = responseWrapper.body()) {
+            assertEquals(200, fileStream.statusCode());
+            assertEquals("image/jpeg", fileStream.header("content-type"));
+            assertArrayEquals(binaryContents, fileStream.body().readAllBytes());
+        }
+    }
+
+    @Test
+    void downloadStreamWithWrongFileNameReturnsErrorResponse() {
+        stubFor(get(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + NONEXISTENT_FILE_NAME)
+                .willReturn(badRequest().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        final ResponseWrapper<FileStream> responseWrapper =
+                storageClient.downloadStream(TEST_BUCKET_ID, NONEXISTENT_FILE_NAME);
+
+        assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER, responseWrapper);
+    }
+
+    @Test
+    void downloadToFileWritesContentsToTarget(@TempDir Path tempDir) throws IOException {
+        final byte[] binaryContents = {(byte) 0xFF, (byte) 0xD8, 0x00, (byte) 0xC3, 0x28, (byte) 0x80};
+        final Path target = tempDir.resolve("downloaded");
+        Files.writeString(target, TEST_FILE_CONTENTS_LONGER);
+        stubFor(get(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .willReturn(ok().withBody(binaryContents)));
+
+        final ResponseWrapper<Path> responseWrapper =
+                storageClient.downloadToFile(TEST_BUCKET_ID, TEST_FILE_NAME, target);
+
+        assertNotNull(responseWrapper);
+        assertEquals(target, responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+        assertArrayEquals(binaryContents, Files.readAllBytes(target));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(List.of(target), files.toList());
+        }
+    }
+
+    @Test
+    void downloadToFileRetriedWithAShorterBodyLeavesNothingOfTheFailedAttempt(@TempDir Path tempDir)
+            throws IOException {
+        // WireMock can't cut a body off halfway, so this one is served by the JDK's server
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        final AtomicInteger attempts = new AtomicInteger();
+        server.createContext("/", exchange -> {
+            final byte[] longer = TEST_FILE_CONTENTS_LONGER.getBytes(StandardCharsets.UTF_8);
+            if (attempts.incrementAndGet() == 1) {
+                // promises more than it sends, then drops the connection
+                exchange.sendResponseHeaders(200, longer.length * 2L);
+                exchange.getResponseBody().write(longer);
+                exchange.getResponseBody().flush();
+            } else {
+                final byte[] shorter = TEST_FILE_CONTENTS_SHORTER.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, shorter.length);
+                exchange.getResponseBody().write(shorter);
+            }
+            exchange.close();
+        });
+        server.start();
+        final Path target = tempDir.resolve("downloaded");
+        final RetryPolicy retryPolicy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(10));
+        try (StorageClient retryingStorageClient = new StorageClient("any", TEST_API_KEY,
+                StorageClientOptions.builder().retryPolicy(retryPolicy).build()) {
+            @Override
+            protected RequestMaker newRequest() {
+                return new RequestMaker("http://localhost:" + server.getAddress().getPort(), apiKey, transport);
+            }
+        }) {
+            final ResponseWrapper<Path> responseWrapper =
+                    retryingStorageClient.downloadToFile(TEST_BUCKET_ID, TEST_FILE_NAME, target);
+
+            assertEquals(target, responseWrapper.body());
+            assertEquals(2, responseWrapper.attempts());
+            assertEquals(TEST_FILE_CONTENTS_SHORTER, Files.readString(target));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void downloadToFileWithWrongFileNameLeavesTargetUntouched(@TempDir Path tempDir) throws IOException {
+        final Path target = tempDir.resolve("downloaded");
+        Files.writeString(target, TEST_FILE_CONTENTS_LONGER);
+        stubFor(get(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + NONEXISTENT_FILE_NAME)
+                .willReturn(badRequest().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        final ResponseWrapper<Path> responseWrapper =
+                storageClient.downloadToFile(TEST_BUCKET_ID, NONEXISTENT_FILE_NAME, target);
+
+        assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER, responseWrapper);
+        assertEquals(TEST_FILE_CONTENTS_LONGER, Files.readString(target));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(List.of(target), files.toList());
+        }
+    }
+
     @Test
     void deleteFileReturnsSuccessMessage() {
         final String expectedMessage = "Successfully deleted";
@@ -325,6 +701,68 @@ public class StorageClientIntegrationTest {
         assertNull(responseWrapper.exception());
     }
 
+    @Test
+    void deleteFilesReportsWhichObjectsWereDeleted() {
+        stubFor(delete(OBJECT_PATH + "/" + TEST_BUCKET_ID)
+                .withRequestBody(equalToJson("""
+                        {"prefixes":["file-1","missing-file","a/file-2"]}"""))
+                .willReturn(ok().withBody(LIST_FILES_JSON_RESPONSE("file-1", "a/file-2"))));
+
+        final ResponseWrapper<List<FileDeleteResult>> responseWrapper =
+                storageClient.deleteFiles(TEST_BUCKET_ID, List.of("file-1", "missing-file", "a/file-2"));
+
+        assertEquals(List.of(
+                new FileDeleteResult("file-1", true, null, null),
+                new FileDeleteResult("missing-file", false, null, null),
+                new FileDeleteResult("a/file-2", true, null, null)), responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+    }
+
+    @Test
+    void deleteFilesSplitsPathsIntoBatches() {
+        stubFor(delete(OBJECT_PATH + "/" + TEST_BUCKET_ID)
+                .willReturn(ok().withBody("[]")));
+        final List<String> paths = Stream.iterate(0, i -> i + 1)
+                .limit(StorageClient.DELETE_BATCH_SIZE * 2L + 500)
+                .map(i -> "file-" + i)
+                .toList();
+
+        final ResponseWrapper<List<FileDeleteResult>> responseWrapper =
+                storageClient.deleteFilesAsync(TEST_BUCKET_ID, paths, 2).join();
+
+        verify(3, deleteRequestedFor(urlEqualTo(OBJECT_PATH + "/" + TEST_BUCKET_ID)));
+        verify(1, deleteRequestedFor(urlEqualTo(OBJECT_PATH + "/" + TEST_BUCKET_ID))
+                .withRequestBody(matchingJsonPath("$.prefixes[0]", equalTo("file-2000")))
+                .withRequestBody(matchingJsonPath("$.prefixes.length()", equalTo("500"))));
+        assertEquals(paths, responseWrapper.body().stream().map(FileDeleteResult::path).toList());
+        assertTrue(responseWrapper.body().stream().noneMatch(FileDeleteResult::deleted));
+    }
+
+    @Test
+    void deleteFilesReportsFailedBatchOnEachOfItsObjects() {
+        stubFor(delete(OBJECT_PATH + "/" + NONEXISTENT_BUCKET_ID)
+                .willReturn(badRequest().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        final ResponseWrapper<List<FileDeleteResult>> responseWrapper =
+                storageClient.deleteFiles(NONEXISTENT_BUCKET_ID, List.of("file-1", "file-2"));
+
+        assertEquals(2, responseWrapper.body().size());
+        for (FileDeleteResult result : responseWrapper.body()) {
+            assertFalse(result.deleted());
+            assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER.errorResponse(), result.errorResponse());
+        }
+    }
+
+    @Test
+    void deleteFilesWithNoPathsSendsNothing() {
+        final ResponseWrapper<List<FileDeleteResult>> responseWrapper =
+                storageClient.deleteFiles(TEST_BUCKET_ID, List.of());
+
+        assertEquals(List.of(), responseWrapper.body());
+        verify(0, deleteRequestedFor(anyUrl()));
+    }
+
     @Test
     void deleteFileWithWrongBucketIdReturnsErrorResponse() {
         stubFor(delete(OBJECT_PATH + "/" + NONEXISTENT_BUCKET_ID + "/" + TEST_FILE_NAME)
@@ -361,6 +799,35 @@ public class StorageClientIntegrationTest {
         assertNull(responseWrapper.exception());
     }
 
+    @Test
+    void putFileSendsUpsertHeaderAndReturnsIdentity() {
+        stubFor(post(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .withHeader("x-upsert", equalTo("true"))
+                .willReturn(ok().withBody(IDENTITY_JSON_RESPONSE)));
+
+        final ResponseWrapper<FileObjectIdentity> responseWrapper =
+                storageClient.putFile(TEST_BUCKET_ID, TEST_FILE_NAME, new byte[]{1}, "text/plain");
+
+        assertEquals(EXPECTED_OBJECT_IDENTITY, responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+        verify(0, putRequestedFor(anyUrl()));
+    }
+
+    @Test
+    void uploadFileSendsUpsertHeaderOnlyWhenAsked() {
+        stubFor(post(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .willReturn(ok().withBody(IDENTITY_JSON_RESPONSE)));
+
+        storageClient.uploadFile(TEST_BUCKET_ID, TEST_FILE_NAME, new byte[]{1}, "text/plain");
+        storageClient.uploadFileAsync(TEST_BUCKET_ID, TEST_FILE_NAME, new byte[]{1}, "text/plain", true).join();
+
+        verify(1, postRequestedFor(urlEqualTo(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME))
+                .withoutHeader("x-upsert"));
+        verify(1, postRequestedFor(urlEqualTo(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME))
+                .withHeader("x-upsert", equalTo("true")));
+    }
+
     @Test
     void updateFileWithWrongBucketNameReturnsErrorResponse() {
         stubFor(put(urlPathMatching(OBJECT_PATH + "/" + NONEXISTENT_BUCKET_ID + "/.*"))
@@ -419,6 +886,94 @@ public class StorageClientIntegrationTest {
         assertNull(responseWrapper.exception());
     }
 
+    @Test
+    void uploadFileFromPathStreamsContents(@TempDir Path tempDir) throws IOException {
+        final Path file = tempDir.resolve("upload");
+        Files.writeString(file, TEST_FILE_CONTENTS_LONGER);
+        stubFor(post(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .withHeader("Content-Type", equalTo("text/plain"))
+                .withRequestBody(equalTo(TEST_FILE_CONTENTS_LONGER))
+                .willReturn(ok().withBody(IDENTITY_JSON_RESPONSE)));
+
+        final ResponseWrapper<FileObjectIdentity> responseWrapper =
+                storageClient.uploadFile(TEST_BUCKET_ID, TEST_FILE_NAME, file, "text/plain");
+
+        assertNotNull(responseWrapper);
+        assertEquals(EXPECTED_OBJECT_IDENTITY, responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+    }
+
+    @Test
+    void uploadFileFromMissingPathReturnsException(@TempDir Path tempDir) {
+        final ResponseWrapper<FileObjectIdentity> responseWrapper = storageClient.uploadFile(
+                TEST_BUCKET_ID, TEST_FILE_NAME, tempDir.resolve("missing"), "text/plain");
+
+        assertNotNull(responseWrapper);
+        assertNull(responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNotNull(responseWrapper.exception());
+    }
+
+    @Test
+    void uploadFileFromStreamWithKnownLengthSendsContents() {
+        final byte[] contents = TEST_FILE_CONTENTS_LONGER.getBytes();
+        stubFor(post(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .withHeader("Content-Length", equalTo(String.valueOf(contents.length)))
+                .withRequestBody(binaryEqualTo(contents))
+                .willReturn(ok().withBody(IDENTITY_JSON_RESPONSE)));
+
+        final ResponseWrapper<FileObjectIdentity> responseWrapper = storageClient.uploadFile(
+                TEST_BUCKET_ID, TEST_FILE_NAME, new ByteArrayInputStream(contents), contents.length, "text/plain");
+
+        assertNotNull(responseWrapper);
+        assertEquals(EXPECTED_OBJECT_IDENTITY, responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+    }
+
+    @Test
+    void updateFileFromStreamSupplierSendsContents() {
+        final byte[] contents = TEST_FILE_CONTENTS_MODIFIED.getBytes();
+        stubFor(put(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .withRequestBody(binaryEqualTo(contents))
+                .willReturn(ok().withBody(IDENTITY_JSON_RESPONSE)));
+
+        final ResponseWrapper<FileObjectIdentity> responseWrapper = storageClient.updateFile(TEST_BUCKET_ID,
+                TEST_FILE_NAME, () -> new ByteArrayInputStream(contents), contents.length, "text/plain");
+
+        assertNotNull(responseWrapper);
+        assertEquals(EXPECTED_OBJECT_IDENTITY, responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+    }
+
+    @Test
+    void uploadFileFromStreamWithUnknownLengthSendsItChunked() {
+        // the JDK client's h2c upgrade can't carry a body of unknown length, so talk HTTP/1.1
+        // to WireMock like it would over TLS (where HTTP/2 is negotiated without an upgrade)
+        final HttpClient http11Client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        final StorageClient http11StorageClient = new StorageClient("any", TEST_API_KEY) {
+            @Override
+            protected RequestMaker newRequest() {
+                return new RequestMaker("http://localhost:" + port, apiKey, http11Client);
+            }
+        };
+        final byte[] contents = TEST_FILE_CONTENTS_LONGER.getBytes();
+        stubFor(post(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .withHeader("Transfer-Encoding", equalTo("chunked"))
+                .withRequestBody(binaryEqualTo(contents))
+                .willReturn(ok().withBody(IDENTITY_JSON_RESPONSE)));
+
+        final ResponseWrapper<FileObjectIdentity> responseWrapper = http11StorageClient.uploadFile(
+                TEST_BUCKET_ID, TEST_FILE_NAME, new ByteArrayInputStream(contents), -1, "text/plain");
+
+        assertNotNull(responseWrapper);
+        assertEquals(EXPECTED_OBJECT_IDENTITY, responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+    }
+
     @Test
     void uploadOversizedFileReturnsErrorResponse() {
         stubFor(post(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
@@ -527,6 +1082,676 @@ public class StorageClientIntegrationTest {
         assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER, responseWrapper);
     }
 
+    @Test
+    void listBucketsAsyncReturnsBuckets() {
+        stubFor(get(BUCKET_PATH).willReturn(ok().withBody(LIST_BUCKETS_JSON_RESPONSE)));
+
+        final ResponseWrapper<List<Bucket>> responseWrapper = storageClient.listBucketsAsync().join();
+
+        assertNotNull(responseWrapper);
+        assertEquals(EXPECTED_BUCKETS, responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+    }
+
+    @Test
+    void getBucketAsyncWithWrongParamsReturnsErrorResponse() {
+        stubFor(get(BUCKET_PATH + "/" + NONEXISTENT_BUCKET_ID)
+                .willReturn(badRequest().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        final ResponseWrapper<Bucket> responseWrapper =
+                storageClient.getBucketAsync(NONEXISTENT_BUCKET_ID).join();
+
+        assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER, responseWrapper);
+    }
+
+    @Test
+    void uploadFileAsyncReturnsIdentity() {
+        stubFor(post(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .withRequestBody(equalTo(TEST_FILE_CONTENTS_SHORTER))
+                .willReturn(ok().withBody(IDENTITY_JSON_RESPONSE)));
+
+        final ResponseWrapper<FileObjectIdentity> responseWrapper = storageClient.uploadFileAsync(
+                TEST_BUCKET_ID, TEST_FILE_NAME, TEST_FILE_CONTENTS_SHORTER.getBytes(), "text/plain").join();
+
+        assertNotNull(responseWrapper);
+        assertEquals(EXPECTED_OBJECT_IDENTITY, responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+    }
+
+    @Test
+    void downloadStreamAsyncReturnsContents() throws IOException {
+        stubFor(get(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .willReturn(ok().withBody(TEST_FILE_CONTENTS_SHORTER)));
+
+        final ResponseWrapper<FileStream> responseWrapper =
+                storageClient.downloadStreamAsync(TEST_BUCKET_ID, TEST_FILE_NAME).join();
+
+        assertNotNull(responseWrapper);
+        assertNull(responseWrapper.errorResponse());
+        assertNull(responseWrapper.exception());
+        try (FileStream fileStream = responseWrapper.body()) {
+            assertArrayEquals(TEST_FILE_CONTENTS_SHORTER.getBytes(), fileStream.body().readAllBytes());
+        }
+    }
+
+    @Test
+    void asyncResponsesAreParsedOnConfiguredExecutor() {
+        final AtomicInteger executions = new AtomicInteger();
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        final Executor countingExecutor = command -> {
+            executions.incrementAndGet();
+            executorService.execute(command);
+        };
+        final StorageClient customStorageClient = new StorageClient("any", TEST_API_KEY,
+                StorageClientOptions.builder().executor(countingExecutor).build()) {
+            @Override
+            protected RequestMaker newRequest() {
+                return new RequestMaker("http://localhost:" + port, apiKey, transport);
+            }
+        };
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(ok().withBody(BUCKET_JSON)));
+
+        try (customStorageClient) {
+            final ResponseWrapper<Bucket> responseWrapper = customStorageClient.getBucketAsync(TEST_BUCKET_ID).join();
+
+            assertEquals(EXPECTED_BUCKET, responseWrapper.body());
+            assertTrue(executions.get() > 0);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void asyncRequestOnClosedClientReturnsException() {
+        final StorageClient closedStorageClient = new StorageClient("any", TEST_API_KEY) {
+            @Override
+            protected RequestMaker newRequest() {
+                return new RequestMaker("http://localhost:" + port, apiKey, transport);
+            }
+        };
+        closedStorageClient.close();
+
+        final ResponseWrapper<List<Bucket>> responseWrapper = closedStorageClient.listBucketsAsync().join();
+
+        assertNotNull(responseWrapper);
+        assertNull(responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNotNull(responseWrapper.exception());
+    }
+
+    @Test
+    void idempotentRequestIsRetriedAfterServerError() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).inScenario("flaky")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(serviceUnavailable().withBody(MOCK_ERROR_JSON_RESPONSE))
+                .willSetStateTo("recovered"));
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).inScenario("flaky")
+                .whenScenarioStateIs("recovered")
+                .willReturn(ok().withBody(BUCKET_JSON)));
+
+        try (StorageClient retryingStorageClient = retryingStorageClient(3)) {
+            final ResponseWrapper<Bucket> responseWrapper = retryingStorageClient.getBucket(TEST_BUCKET_ID);
+
+            assertEquals(EXPECTED_BUCKET, responseWrapper.body());
+            assertEquals(2, responseWrapper.attempts());
+        }
+    }
+
+    @Test
+    void requestsAreNotRetriedByDefault() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(serviceUnavailable().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        try (StorageClient defaultStorageClient = storageClientWith(StorageClientOptions.defaults())) {
+            final ResponseWrapper<Bucket> responseWrapper = defaultStorageClient.getBucket(TEST_BUCKET_ID);
+
+            assertNotNull(responseWrapper.errorResponse());
+            assertEquals(1, responseWrapper.attempts());
+            verify(1, getRequestedFor(urlEqualTo(BUCKET_PATH + "/" + TEST_BUCKET_ID)));
+        }
+    }
+
+    @Test
+    void unreadableBodyAfterARetryKeepsTheAttemptCount() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).inScenario("flaky")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(serviceUnavailable().withBody(MOCK_ERROR_JSON_RESPONSE))
+                .willSetStateTo("garbled"));
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).inScenario("flaky")
+                .whenScenarioStateIs("garbled")
+                .willReturn(ok().withBody("not json")));
+
+        try (StorageClient retryingStorageClient = retryingStorageClient(3)) {
+            final ResponseWrapper<Bucket> responseWrapper = retryingStorageClient.getBucket(TEST_BUCKET_ID);
+
+            assertNotNull(responseWrapper.exception());
+            assertEquals(2, responseWrapper.attempts());
+        }
+    }
+
+    @Test
+    void asyncRequestIsRetriedAfterTooManyRequests() {
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID).inScenario("throttled")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "0")
+                        .withBody(MOCK_ERROR_JSON_RESPONSE))
+                .willSetStateTo("allowed"));
+        stubFor(post(OBJECT_PATH + "/list/" + TEST_BUCKET_ID).inScenario("throttled")
+                .whenScenarioStateIs("allowed")
+                .willReturn(ok().withBody(LIST_FILES_JSON_RESPONSE("file-1"))));
+
+        try (StorageClient retryingStorageClient = retryingStorageClient(3)) {
+            final ResponseWrapper<List<FileObject>> responseWrapper =
+                    retryingStorageClient.listFilesInBucketAsync(TEST_BUCKET_ID, null).join();
+
+            assertEquals(1, responseWrapper.body().size());
+            assertEquals(2, responseWrapper.attempts());
+        }
+    }
+
+    @Test
+    void connectionFailuresAreRetriedUpToMaxAttempts() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID)
+                .willReturn(aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER)));
+
+        try (StorageClient retryingStorageClient = retryingStorageClient(3)) {
+            final ResponseWrapper<Bucket> responseWrapper = retryingStorageClient.getBucket(TEST_BUCKET_ID);
+
+            assertNotNull(responseWrapper.exception());
+            assertEquals(3, responseWrapper.attempts());
+            verify(3, getRequestedFor(urlEqualTo(BUCKET_PATH + "/" + TEST_BUCKET_ID)));
+        }
+    }
+
+    @Test
+    void nonIdempotentUploadIsNotRetried() {
+        stubFor(post(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .willReturn(serviceUnavailable().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        try (StorageClient retryingStorageClient = retryingStorageClient(3)) {
+            final ResponseWrapper<FileObjectIdentity> responseWrapper =
+                    retryingStorageClient.uploadFile(TEST_BUCKET_ID, TEST_FILE_NAME, new byte[]{1});
+
+            assertNotNull(responseWrapper.errorResponse());
+            assertEquals(1, responseWrapper.attempts());
+            verify(1, postRequestedFor(anyUrl()));
+        }
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        stubFor(get(BUCKET_PATH + "/" + NONEXISTENT_BUCKET_ID)
+                .willReturn(badRequest().withBody(MOCK_ERROR_JSON_RESPONSE)));
+
+        try (StorageClient retryingStorageClient = retryingStorageClient(3)) {
+            final ResponseWrapper<Bucket> responseWrapper = retryingStorageClient.getBucket(NONEXISTENT_BUCKET_ID);
+
+            assertEquals(EXPECTED_MOCK_ERROR_RESPONSE_WRAPPER.errorResponse(), responseWrapper.errorResponse());
+            assertEquals(1, responseWrapper.attempts());
+        }
+    }
+
+    @Test
+    void requestFailsFastWhenNoPermitIsAvailableWithinMaxWait() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(ok().withBody(BUCKET_JSON)));
+        final RateLimits rateLimits = new RateLimits(new RateLimit(0.1, 1), null, false, Duration.ZERO);
+
+        try (StorageClient limitedStorageClient = storageClientWith(
+                StorageClientOptions.builder().rateLimits(rateLimits).build())) {
+            assertEquals(EXPECTED_BUCKET, limitedStorageClient.getBucket(TEST_BUCKET_ID).body());
+            final ResponseWrapper<Bucket> responseWrapper = limitedStorageClient.getBucketAsync(TEST_BUCKET_ID).join();
+
+            assertNull(responseWrapper.body());
+            assertTrue(responseWrapper.exception().startsWith("Rate limit exceeded"));
+            assertEquals(0, responseWrapper.attempts());
+            verify(1, getRequestedFor(anyUrl()));
+        }
+    }
+
+    @Test
+    void perBucketLimitsAndDataBudgetAreIndependent() {
+        stubFor(get(urlMatching(BUCKET_PATH + "/.*")).willReturn(ok().withBody(BUCKET_JSON)));
+        stubFor(get(STORAGE_PATH + "/health").willReturn(ok().withBody(HEALTHY_JSON)));
+        stubFor(get(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .willReturn(ok().withBody(TEST_FILE_CONTENTS_SHORTER)));
+        final RateLimits rateLimits = new RateLimits(
+                new RateLimit(0.1, 1), new RateLimit(0.1, 1), true, Duration.ZERO);
+
+        try (StorageClient limitedStorageClient = storageClientWith(
+                StorageClientOptions.builder().rateLimits(rateLimits).build())) {
+            assertTrue(limitedStorageClient.getBucket(TEST_BUCKET_ID).hasBody());
+            assertTrue(limitedStorageClient.getBucket(NONEXISTENT_BUCKET_ID).hasBody());
+            assertTrue(limitedStorageClient.downloadFile(TEST_BUCKET_ID, TEST_FILE_NAME).hasBody());
+            assertTrue(limitedStorageClient.getBucket(TEST_BUCKET_ID).hasException());
+            assertTrue(limitedStorageClient.downloadFile(TEST_BUCKET_ID, TEST_FILE_NAME).hasException());
+            assertTrue(limitedStorageClient.isHealthy().body());
+            assertTrue(limitedStorageClient.isHealthy().body());
+        }
+    }
+
+    @Test
+    void adaptiveConcurrencyLimitIsExposedAndCutOnThrottling() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(aResponse().withStatus(429)
+                .withBody(MOCK_ERROR_JSON_RESPONSE)));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .retryPolicy(RetryPolicy.none())
+                .adaptiveConcurrency(new AdaptiveConcurrency(10, 1, 20, 0.5, 2.0))
+                .build();
+
+        try (StorageClient limitedStorageClient = storageClientWith(options)) {
+            assertEquals(new StorageClientMetrics(10, 0, 0), limitedStorageClient.metrics());
+
+            final ResponseWrapper<Bucket> responseWrapper = limitedStorageClient.getBucketAsync(TEST_BUCKET_ID).join();
+
+            assertNotNull(responseWrapper.errorResponse());
+            assertEquals(new StorageClientMetrics(5, 0, 0), limitedStorageClient.metrics());
+        }
+        assertEquals(new StorageClientMetrics(0, 0, 0), storageClient.metrics());
+    }
+
+    @Test
+    void slowDownloadIsHedgedAndTheFasterAnswerWins() {
+        final String url = OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME;
+        stubFor(get(url).inScenario("stall")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(ok().withBody("slow").withFixedDelay(3000))
+                .willSetStateTo("stalled"));
+        stubFor(get(url).inScenario("stall")
+                .whenScenarioStateIs("stalled")
+                .willReturn(ok().withBody("fast")));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .hedgingPolicy(new HedgingPolicy(0.95, Duration.ofMillis(50), Duration.ofMillis(10)))
+                .build();
+
+        try (StorageClient hedgingStorageClient = storageClientWith(options)) {
+            final long start = System.nanoTime();
+            final ResponseWrapper<String> responseWrapper = hedgingStorageClient.downloadFile(TEST_BUCKET_ID, TEST_FILE_NAME);
+
+            assertEquals("fast", responseWrapper.body());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+            verify(2, getRequestedFor(urlEqualTo(url)));
+        }
+    }
+
+    @Test
+    void fastDownloadIsNotHedged() {
+        final String url = OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME;
+        stubFor(get(url).willReturn(ok().withBody(TEST_FILE_CONTENTS_SHORTER)));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .hedgingPolicy(new HedgingPolicy(0.95, Duration.ofSeconds(1), Duration.ofMillis(10)))
+                .build();
+
+        try (StorageClient hedgingStorageClient = storageClientWith(options)) {
+            final ResponseWrapper<String> responseWrapper =
+                    hedgingStorageClient.downloadFileAsync(TEST_BUCKET_ID, TEST_FILE_NAME).join();
+
+            assertEquals(TEST_FILE_CONTENTS_SHORTER, responseWrapper.body());
+            verify(1, getRequestedFor(urlEqualTo(url)));
+        }
+    }
+
+    @Test
+    void circuitOpensAfterFailuresAndClosesOnceHealthCheckSucceeds() throws InterruptedException {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(serviceUnavailable()));
+        stubFor(get(STORAGE_PATH + "/health").willReturn(ok().withBody(UNHEALTHY_JSON)));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .retryPolicy(RetryPolicy.none())
+                .circuitBreaker(new CircuitBreakerPolicy(2, Duration.ofMillis(20)))
+                .build();
+
+        try (StorageClient breakingStorageClient = storageClientWith(options)) {
+            breakingStorageClient.getBucket(TEST_BUCKET_ID);
+            breakingStorageClient.getBucketAsync(TEST_BUCKET_ID).join();
+            final ResponseWrapper<Bucket> rejected = breakingStorageClient.getBucket(TEST_BUCKET_ID);
+
+            assertTrue(rejected.exception().startsWith("Circuit breaker is open"));
+            assertEquals(0, rejected.attempts());
+            verify(2, getRequestedFor(urlEqualTo(BUCKET_PATH + "/" + TEST_BUCKET_ID)));
+
+            stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(ok().withBody(BUCKET_JSON)));
+            stubFor(get(STORAGE_PATH + "/health").willReturn(ok().withBody(HEALTHY_JSON)));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (breakingStorageClient.transport.circuitBreaker().isOpen() && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+
+            assertEquals(EXPECTED_BUCKET, breakingStorageClient.getBucket(TEST_BUCKET_ID).body());
+        }
+    }
+
+    @Test
+    void successfulIsHealthyClosesTheCircuit() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(serviceUnavailable()));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .retryPolicy(RetryPolicy.none())
+                .circuitBreaker(new CircuitBreakerPolicy(1, Duration.ofHours(1)))
+                .build();
+
+        try (StorageClient breakingStorageClient = storageClientWith(options)) {
+            breakingStorageClient.getBucket(TEST_BUCKET_ID);
+            assertTrue(breakingStorageClient.getBucket(TEST_BUCKET_ID).exception().startsWith("Circuit breaker is open"));
+
+            stubFor(get(STORAGE_PATH + "/health").willReturn(ok().withBody(HEALTHY_JSON)));
+            assertTrue(breakingStorageClient.isHealthy().body());
+
+            assertNotNull(breakingStorageClient.getBucket(TEST_BUCKET_ID).errorResponse());
+        }
+    }
+
+    @Test
+    void slowMetadataRequestTimesOut() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(ok().withBody(BUCKET_JSON).withFixedDelay(3000)));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .retryPolicy(RetryPolicy.none())
+                .timeouts(new Timeouts(null, Duration.ofMillis(200), null))
+                .build();
+
+        try (StorageClient timingOutStorageClient = storageClientWith(options)) {
+            final long start = System.nanoTime();
+            final ResponseWrapper<Bucket> responseWrapper = timingOutStorageClient.getBucket(TEST_BUCKET_ID);
+
+            assertNotNull(responseWrapper.exception());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        }
+    }
+
+    @Test
+    void uploadsArentCutShortByTheDownloadTimeout() {
+        stubFor(post(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .willReturn(ok().withBody(IDENTITY_JSON_RESPONSE).withFixedDelay(1000)));
+        stubFor(get(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .willReturn(ok().withBody(TEST_FILE_CONTENTS_SHORTER).withFixedDelay(1000)));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .timeouts(new Timeouts(null, null, Duration.ofMillis(200)))
+                .build();
+
+        try (StorageClient timingOutStorageClient = storageClientWith(options)) {
+            final ResponseWrapper<FileObjectIdentity> upload = timingOutStorageClient.uploadFile(
+                    TEST_BUCKET_ID, TEST_FILE_NAME, TEST_FILE_CONTENTS_SHORTER.getBytes(), "text/plain");
+            final ResponseWrapper<String> download = timingOutStorageClient.downloadFile(TEST_BUCKET_ID, TEST_FILE_NAME);
+
+            assertEquals(EXPECTED_OBJECT_IDENTITY, upload.body());
+            assertNotNull(download.exception());
+        }
+    }
+
+    @Test
+    void deadlineSpansRetries() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID)
+                .willReturn(serviceUnavailable().withBody(MOCK_ERROR_JSON_RESPONSE).withFixedDelay(200)));
+
+        try (StorageClient retryingStorageClient = retryingStorageClient(10)) {
+            final long start = System.nanoTime();
+            final ResponseWrapper<Bucket> responseWrapper =
+                    retryingStorageClient.withDeadline(Duration.ofMillis(500)).getBucketAsync(TEST_BUCKET_ID).join();
+
+            assertNull(responseWrapper.body());
+            assertTrue(responseWrapper.attempts() < 10);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        }
+    }
+
+    @Test
+    void deadlineBoundsTheWaitForAConcurrencySlot() throws InterruptedException {
+        stubFor(get(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .willReturn(ok().withBody(TEST_FILE_CONTENTS_SHORTER).withFixedDelay(2000)));
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(ok().withBody(BUCKET_JSON)));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .adaptiveConcurrency(new AdaptiveConcurrency(1, 1, 1, 0.5, 2.0))
+                .build();
+
+        try (StorageClient limitedStorageClient = storageClientWith(options)) {
+            final CompletableFuture<ResponseWrapper<String>> slow =
+                    limitedStorageClient.downloadFileAsync(TEST_BUCKET_ID, TEST_FILE_NAME);
+            final long slotTaken = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (limitedStorageClient.metrics().inFlightRequests() == 0 && System.nanoTime() < slotTaken) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            final long start = System.nanoTime();
+
+            final ResponseWrapper<Bucket> responseWrapper =
+                    limitedStorageClient.withDeadline(Duration.ofMillis(200)).getBucket(TEST_BUCKET_ID);
+
+            assertEquals("Deadline exceeded", responseWrapper.exception());
+            assertEquals(0, responseWrapper.attempts());
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+            assertEquals(TEST_FILE_CONTENTS_SHORTER, slow.join().body());
+        }
+    }
+
+    @Test
+    void deadlineViewSharesTheClientAndClosingItKeepsTheClientOpen() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(ok().withBody(BUCKET_JSON)));
+
+        try (StorageClient deadlineStorageClient = storageClient.withDeadline(Duration.ofSeconds(5))) {
+            assertEquals(EXPECTED_BUCKET, deadlineStorageClient.getBucket(TEST_BUCKET_ID).body());
+            assertSame(storageClient.transport, deadlineStorageClient.transport);
+        }
+        assertFalse(storageClient.transport.isClosed());
+        assertEquals("Deadline exceeded",
+                storageClient.withDeadline(Duration.ZERO).getBucket(TEST_BUCKET_ID).exception());
+    }
+
+    @Test
+    void cachedDownloadIsRevalidatedAndServedFromTheCacheWhenNotModified() {
+        final String url = OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME;
+        stubFor(get(url).withHeader("If-None-Match", absent())
+                .willReturn(ok().withHeader("ETag", "\"v1\"").withBody(TEST_FILE_CONTENTS_SHORTER)));
+        stubFor(get(url).withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304).withHeader("ETag", "\"v1\"")));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .downloadCache(DownloadCachePolicy.defaults())
+                .build();
+
+        try (StorageClient cachingStorageClient = storageClientWith(options)) {
+            assertEquals(TEST_FILE_CONTENTS_SHORTER, cachingStorageClient.downloadFile(TEST_BUCKET_ID, TEST_FILE_NAME).body());
+            assertEquals(TEST_FILE_CONTENTS_SHORTER,
+                    cachingStorageClient.downloadFileAsync(TEST_BUCKET_ID, TEST_FILE_NAME).join().body());
+            assertArrayEquals(TEST_FILE_CONTENTS_SHORTER.getBytes(),
+                    cachingStorageClient.downloadFileBytes(TEST_BUCKET_ID, TEST_FILE_NAME).body());
+
+            verify(1, getRequestedFor(urlEqualTo(url)).withHeader("If-None-Match", absent()));
+            verify(2, getRequestedFor(urlEqualTo(url)).withHeader("If-None-Match", equalTo("\"v1\"")));
+        }
+    }
+
+    @Test
+    void slowCachedDownloadIsHedged() {
+        final String url = OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME;
+        stubFor(get(url).inScenario("stall")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(ok().withHeader("ETag", "\"v1\"").withBody("slow").withFixedDelay(3000))
+                .willSetStateTo("stalled"));
+        stubFor(get(url).inScenario("stall")
+                .whenScenarioStateIs("stalled")
+                .willReturn(ok().withHeader("ETag", "\"v1\"").withBody("fast")));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .hedgingPolicy(new HedgingPolicy(0.95, Duration.ofMillis(50), Duration.ofMillis(10)))
+                .downloadCache(DownloadCachePolicy.defaults())
+                .build();
+
+        try (StorageClient hedgingStorageClient = storageClientWith(options)) {
+            final long start = System.nanoTime();
+            final ResponseWrapper<String> responseWrapper = hedgingStorageClient.downloadFile(TEST_BUCKET_ID, TEST_FILE_NAME);
+
+            assertEquals("fast", responseWrapper.body());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+            verify(2, getRequestedFor(urlEqualTo(url)));
+        }
+    }
+
+    @Test
+    void changedFileIsDownloadedAgainAndDeletedFileIsUncached() {
+        final String url = OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME;
+        stubFor(get(url).withHeader("If-None-Match", absent())
+                .willReturn(ok().withHeader("ETag", "\"v1\"").withBody("one")));
+        stubFor(get(url).withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(ok().withHeader("ETag", "\"v2\"").withBody("two")));
+        stubFor(delete(url).willReturn(ok().withBody(MESSAGE_RESPONSE("Successfully deleted"))));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .downloadCache(new DownloadCachePolicy(1024, DownloadCachePolicy.Eviction.LRU))
+                .build();
+
+        try (StorageClient cachingStorageClient = storageClientWith(options)) {
+            assertEquals("one", cachingStorageClient.downloadFile(TEST_BUCKET_ID, TEST_FILE_NAME).body());
+            assertEquals("two", cachingStorageClient.downloadFile(TEST_BUCKET_ID, TEST_FILE_NAME).body());
+            cachingStorageClient.deleteFile(TEST_BUCKET_ID, TEST_FILE_NAME);
+            assertEquals("one", cachingStorageClient.downloadFile(TEST_BUCKET_ID, TEST_FILE_NAME).body());
+
+            verify(2, getRequestedFor(urlEqualTo(url)).withHeader("If-None-Match", absent()));
+        }
+    }
+
+    @Test
+    void diskCachedDownloadIsServedAfterARestart(@TempDir Path cacheDirectory) {
+        final String url = OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME;
+        stubFor(get(url).withHeader("If-None-Match", absent())
+                .willReturn(ok().withHeader("ETag", "\"v1\"").withBody(TEST_FILE_CONTENTS_SHORTER)));
+        stubFor(get(url).withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304)));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .diskCache(new DiskCachePolicy(cacheDirectory, 1024 * 1024))
+                .build();
+
+        try (StorageClient cachingStorageClient = storageClientWith(options)) {
+            assertEquals(TEST_FILE_CONTENTS_SHORTER, cachingStorageClient.downloadFile(TEST_BUCKET_ID, TEST_FILE_NAME).body());
+        }
+        try (StorageClient restartedStorageClient = storageClientWith(options)) {
+            assertArrayEquals(TEST_FILE_CONTENTS_SHORTER.getBytes(),
+                    restartedStorageClient.downloadFileBytesAsync(TEST_BUCKET_ID, TEST_FILE_NAME).join().body());
+        }
+
+        verify(1, getRequestedFor(urlEqualTo(url)).withHeader("If-None-Match", absent()));
+        verify(1, getRequestedFor(urlEqualTo(url)).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+
+    @Test
+    void concurrentIdenticalReadsShareOneRequest() {
+        final String url = OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME;
+        stubFor(get(url).willReturn(ok().withBody(TEST_FILE_CONTENTS_SHORTER).withFixedDelay(500)));
+
+        try (StorageClient coalescingStorageClient = storageClientWith(StorageClientOptions.defaults())) {
+            final List<CompletableFuture<ResponseWrapper<byte[]>>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(coalescingStorageClient.downloadFileBytesAsync(TEST_BUCKET_ID, TEST_FILE_NAME));
+            }
+
+            final Set<byte[]> bodies = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (CompletableFuture<ResponseWrapper<byte[]>> future : futures) {
+                assertArrayEquals(TEST_FILE_CONTENTS_SHORTER.getBytes(), future.join().body());
+                bodies.add(future.join().body());
+            }
+            verify(1, getRequestedFor(urlEqualTo(url)));
+            assertEquals(19, coalescingStorageClient.metrics().coalescedRequests());
+            // each caller gets an array of its own, so one can't change what the others see
+            assertEquals(20, bodies.size());
+        }
+    }
+
+    @Test
+    void readsWithADeadlineAreNotCoalesced() {
+        final String url = OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME;
+        stubFor(get(url).willReturn(ok().withBody(TEST_FILE_CONTENTS_SHORTER).withFixedDelay(200)));
+
+        try (StorageClient coalescingStorageClient = storageClientWith(StorageClientOptions.defaults())) {
+            final CompletableFuture<ResponseWrapper<String>> first =
+                    coalescingStorageClient.downloadFileAsync(TEST_BUCKET_ID, TEST_FILE_NAME);
+            final CompletableFuture<ResponseWrapper<String>> second = coalescingStorageClient
+                    .withDeadline(Duration.ofSeconds(5)).downloadFileAsync(TEST_BUCKET_ID, TEST_FILE_NAME);
+
+            assertEquals(TEST_FILE_CONTENTS_SHORTER, first.join().body());
+            assertEquals(TEST_FILE_CONTENTS_SHORTER, second.join().body());
+            verify(2, getRequestedFor(urlEqualTo(url)));
+            assertEquals(0, coalescingStorageClient.metrics().coalescedRequests());
+        }
+    }
+
+    @Test
+    void bucketMetadataIsCachedUntilTheBucketIsUpdated() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(ok().withBody(BUCKET_JSON)));
+        stubFor(put(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(ok().withBody(MESSAGE_RESPONSE("Successfully updated"))));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .bucketCacheTtl(Duration.ofMinutes(1))
+                .build();
+
+        try (StorageClient cachingStorageClient = storageClientWith(options)) {
+            assertEquals(EXPECTED_BUCKET, cachingStorageClient.getBucket(TEST_BUCKET_ID).body());
+            final ResponseWrapper<Bucket> cached = cachingStorageClient.getBucketAsync(TEST_BUCKET_ID).join();
+            assertEquals(EXPECTED_BUCKET, cached.body());
+            assertEquals(0, cached.attempts());
+            verify(1, getRequestedFor(urlEqualTo(BUCKET_PATH + "/" + TEST_BUCKET_ID)));
+
+            cachingStorageClient.updateBucket(TEST_BUCKET_ID, null, false, 0, null);
+            cachingStorageClient.getBucket(TEST_BUCKET_ID);
+            verify(2, getRequestedFor(urlEqualTo(BUCKET_PATH + "/" + TEST_BUCKET_ID)));
+        }
+    }
+
+    @Test
+    void uploadsTheBucketWouldRejectAreRejectedWithoutSending() {
+        final Bucket limited = new Bucket(TEST_BUCKET_ID, TEST_BUCKET_NAME, null, false, 4, List.of("image/*"), "", "");
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(ok().withBody(Mapper.toJson(limited))));
+        stubFor(post(OBJECT_PATH + "/" + TEST_BUCKET_ID + "/" + TEST_FILE_NAME)
+                .willReturn(ok().withBody(IDENTITY_JSON_RESPONSE)));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .bucketCacheTtl(Duration.ofMinutes(1))
+                .build();
+
+        try (StorageClient checkingStorageClient = storageClientWith(options)) {
+            final ResponseWrapper<FileObjectIdentity> tooBig =
+                    checkingStorageClient.uploadFile(TEST_BUCKET_ID, TEST_FILE_NAME, new byte[5], "image/png");
+            final ResponseWrapper<FileObjectIdentity> wrongType =
+                    checkingStorageClient.uploadFileAsync(TEST_BUCKET_ID, TEST_FILE_NAME, new byte[4], "text/plain").join();
+            final ResponseWrapper<FileObjectIdentity> allowed =
+                    checkingStorageClient.uploadFileAsync(TEST_BUCKET_ID, TEST_FILE_NAME, new byte[4], "image/png").join();
+
+            assertEquals("413", tooBig.errorResponse().statusCode());
+            assertEquals(0, tooBig.attempts());
+            assertEquals("415", wrongType.errorResponse().statusCode());
+            assertNotNull(allowed.body());
+            verify(1, postRequestedFor(anyUrl()));
+            verify(1, getRequestedFor(urlEqualTo(BUCKET_PATH + "/" + TEST_BUCKET_ID)));
+        }
+    }
+
+    @Test
+    void bucketsThatCantBeReadAreLookedUpOnceForUploadChecks() {
+        stubFor(get(BUCKET_PATH + "/" + TEST_BUCKET_ID).willReturn(forbidden().withBody(MOCK_ERROR_JSON_RESPONSE)));
+        stubFor(get(BUCKET_PATH + "/" + NONEXISTENT_BUCKET_ID).willReturn(notFound().withBody(MOCK_ERROR_JSON_RESPONSE)));
+        stubFor(post(urlMatching(OBJECT_PATH + "/.*")).willReturn(ok().withBody(IDENTITY_JSON_RESPONSE)));
+        final StorageClientOptions options = StorageClientOptions.builder()
+                .bucketCacheTtl(Duration.ofMinutes(1))
+                .build();
+
+        try (StorageClient checkingStorageClient = storageClientWith(options)) {
+            for (String bucketId : List.of(TEST_BUCKET_ID, NONEXISTENT_BUCKET_ID)) {
+                assertNotNull(checkingStorageClient.uploadFile(bucketId, TEST_FILE_NAME, new byte[4], "image/png").body());
+                assertNotNull(checkingStorageClient.uploadFileAsync(bucketId, TEST_FILE_NAME, new byte[4], "image/png")
+                        .join().body());
+                assertNotNull(checkingStorageClient.uploadFile(bucketId, TEST_FILE_NAME, new byte[4], "image/png").body());
+            }
+
+            verify(6, postRequestedFor(anyUrl()));
+            verify(1, getRequestedFor(urlEqualTo(BUCKET_PATH + "/" + TEST_BUCKET_ID)));
+            verify(1, getRequestedFor(urlEqualTo(BUCKET_PATH + "/" + NONEXISTENT_BUCKET_ID)));
+        }
+    }
+
+    private StorageClient storageClientWith(StorageClientOptions options) {
+        return new StorageClient("any", TEST_API_KEY, options) {
+            @Override
+            protected RequestMaker newRequest() {
+                return new RequestMaker("http://localhost:" + port, apiKey, transport);
+            }
+        };
+    }
+
+    private StorageClient retryingStorageClient(int maxAttempts) {
+        final RetryPolicy retryPolicy = new RetryPolicy(maxAttempts, Duration.ofMillis(1), Duration.ofMillis(10));
+        return storageClientWith(StorageClientOptions.builder().retryPolicy(retryPolicy).build());
+    }
+
 
     private static class TestStorageClient extends StorageClient {
 
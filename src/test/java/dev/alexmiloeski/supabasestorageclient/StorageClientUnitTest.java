@@ -35,13 +35,18 @@ class StorageClientUnitTest {
         when(mockRequestMaker.put(any())).thenReturn(mockRequestMaker);
         when(mockRequestMaker.delete()).thenReturn(mockRequestMaker);
         when(mockRequestMaker.contentType(any())).thenReturn(mockRequestMaker);
+        when(mockRequestMaker.idempotent()).thenReturn(mockRequestMaker);
+        when(mockRequestMaker.limit(any(), any())).thenReturn(mockRequestMaker);
+        when(mockRequestMaker.hedged()).thenReturn(mockRequestMaker);
+        when(mockRequestMaker.coalesced()).thenReturn(mockRequestMaker);
+        when(mockRequestMaker.healthCheck()).thenReturn(mockRequestMaker);
         storageClient = new TestStorageClient("", "", mockRequestMaker);
     }
 
     @Test
     void healthCheckReturnsHealthy() {
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(HEALTHY_JSON, null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(HEALTHY_JSON), null, null));
 
         ResponseWrapper<Boolean> responseWrapper = storageClient.isHealthy();
 
@@ -54,8 +59,8 @@ class StorageClientUnitTest {
 
     @Test
     void listBucketsReturnsBuckets() {
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(LIST_BUCKETS_JSON_RESPONSE, null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(LIST_BUCKETS_JSON_RESPONSE), null, null));
 
         final ResponseWrapper<List<Bucket>> responseWrapper = storageClient.listBuckets();
 
@@ -67,8 +72,8 @@ class StorageClientUnitTest {
 
     @Test
     void getBucketReturnsBucket() {
-        when(mockRequestMaker.make())
-                .thenReturn(new ResponseWrapper<>(BUCKET_JSON, null, null));
+        when(mockRequestMaker.makeBytes())
+                .thenReturn(new ResponseWrapper<>(utf8(BUCKET_JSON), null, null));
 
         final ResponseWrapper<Bucket> responseWrapper = storageClient.getBucket(TEST_BUCKET_ID);
 
@@ -80,7 +85,7 @@ class StorageClientUnitTest {
 
     @Test
     void getBucketWithWrongParamsReturnsErrorResponse() {
-        when(mockRequestMaker.make()).thenReturn(
+        when(mockRequestMaker.makeBytes()).thenReturn(
                 new ResponseWrapper<>(null, new ErrorResponse(
                         MOCK_ERROR_STATUS, MOCK_ERROR, MOCK_ERROR_MESSAGE),
                         null));
@@ -100,8 +105,8 @@ class StorageClientUnitTest {
 
     @Test
     void createBucketReturnsProperResponse() {
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(BUCKET_CREATED_JSON_RESPONSE, null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(BUCKET_CREATED_JSON_RESPONSE), null, null));
 
         final ResponseWrapper<String> responseWrapper = storageClient.createBucket(
                 TEST_BUCKET_ID, TEST_BUCKET_NAME, false, null, null);
@@ -113,7 +118,7 @@ class StorageClientUnitTest {
 
     @Test
     void createBucketWithDuplicateNameReturnsErrorResponse() {
-        when(mockRequestMaker.make()).thenReturn(
+        when(mockRequestMaker.makeBytes()).thenReturn(
                 new ResponseWrapper<>(null, new ErrorResponse(
                         MOCK_ERROR_STATUS, MOCK_ERROR, MOCK_ERROR_MESSAGE),
                         null));
@@ -134,8 +139,8 @@ class StorageClientUnitTest {
     @Test
     void emptyBucketReturnsSuccessMessage() {
         final String expectedMessage = "Successfully emptied";
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(MESSAGE_RESPONSE(expectedMessage), null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(MESSAGE_RESPONSE(expectedMessage)), null, null));
 
         final ResponseWrapper<String> responseWrapper = storageClient.emptyBucket(TEST_BUCKET_ID);
 
@@ -147,7 +152,7 @@ class StorageClientUnitTest {
 
     @Test
     void emptyBucketWithWrongParamsReturnsErrorResponse() {
-        when(mockRequestMaker.make()).thenReturn(
+        when(mockRequestMaker.makeBytes()).thenReturn(
                 new ResponseWrapper<>(null, new ErrorResponse(
                         MOCK_ERROR_STATUS, MOCK_ERROR, MOCK_ERROR_MESSAGE),
                         null));
@@ -167,8 +172,8 @@ class StorageClientUnitTest {
     @Test
     void updateBucketReturnsSuccessMessage() {
         final String expectedMessage = "Successfully updated";
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(MESSAGE_RESPONSE(expectedMessage), null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(MESSAGE_RESPONSE(expectedMessage)), null, null));
 
         final ResponseWrapper<String> responseWrapper = storageClient
                 .updateBucket(TEST_BUCKET_ID, null, false, 0, null);
@@ -181,7 +186,7 @@ class StorageClientUnitTest {
 
     @Test
     void updateBucketWithWrongParamsReturnsErrorResponse() {
-        when(mockRequestMaker.make()).thenReturn(
+        when(mockRequestMaker.makeBytes()).thenReturn(
                 new ResponseWrapper<>(null, new ErrorResponse(
                         MOCK_ERROR_STATUS, MOCK_ERROR, MOCK_ERROR_MESSAGE),
                         null));
@@ -202,8 +207,8 @@ class StorageClientUnitTest {
     @Test
     void deleteEmptyBucketReturnsSuccessMessage() {
         final String expectedMessage = "Successfully deleted";
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(MESSAGE_RESPONSE(expectedMessage), null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(MESSAGE_RESPONSE(expectedMessage)), null, null));
 
         final ResponseWrapper<String> responseWrapper = storageClient.deleteBucket(TEST_BUCKET_ID);
 
@@ -215,7 +220,7 @@ class StorageClientUnitTest {
 
     @Test
     void deleteNonEmptyBucketReturnsErrorResponse() {
-        when(mockRequestMaker.make()).thenReturn(
+        when(mockRequestMaker.makeBytes()).thenReturn(
                 new ResponseWrapper<>(null, new ErrorResponse(
                         MOCK_ERROR_STATUS, MOCK_ERROR, MOCK_ERROR_MESSAGE),
                         null));
@@ -234,8 +239,8 @@ class StorageClientUnitTest {
 
     @Test
     void listFilesInBucketReturnsObjects() {
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(LIST_FILES_JSON_RESPONSE, null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(LIST_FILES_JSON_RESPONSE), null, null));
 
         final ResponseWrapper<List<FileObject>> responseWrapper = storageClient.listFilesInBucket(TEST_BUCKET_ID);
 
@@ -247,8 +252,8 @@ class StorageClientUnitTest {
 
     @Test
     void listFilesInBucketWithFolderReturnsObjects() {
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(LIST_FILES_JSON_RESPONSE, null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(LIST_FILES_JSON_RESPONSE), null, null));
 
         final ResponseWrapper<List<FileObject>> responseWrapper = storageClient.listFilesInBucket(
                 TEST_BUCKET_ID, new ListFilesOptions(TEST_FOLDER_NAME, null, null));
@@ -261,7 +266,7 @@ class StorageClientUnitTest {
 
     @Test
     void listFilesWithWrongParamsReturnsErrorResponse() {
-        when(mockRequestMaker.make()).thenReturn(
+        when(mockRequestMaker.makeBytes()).thenReturn(
                 new ResponseWrapper<>(null, new ErrorResponse(
                         MOCK_ERROR_STATUS, MOCK_ERROR, MOCK_ERROR_MESSAGE),
                         null));
@@ -295,8 +300,8 @@ class StorageClientUnitTest {
 
     @Test
     void downloadFileBytesReturnsFileContentsInBytes() {
-        when(mockRequestMaker.make())
-                .thenReturn(new ResponseWrapper<>(TEST_FILE_CONTENTS_SHORTER, null, null));
+        when(mockRequestMaker.makeBytes())
+                .thenReturn(new ResponseWrapper<>(utf8(TEST_FILE_CONTENTS_SHORTER), null, null));
 
         final ResponseWrapper<byte[]> responseWrapper =
                 storageClient.downloadFileBytes(TEST_BUCKET_ID, TEST_FILE_NAME);
@@ -329,8 +334,8 @@ class StorageClientUnitTest {
 
     @Test
     void updateFileReturnsProperResponse() {
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(IDENTITY_JSON_RESPONSE, null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(IDENTITY_JSON_RESPONSE), null, null));
 
         final ResponseWrapper<FileObjectIdentity> responseWrapper =
                 storageClient.updateFile(TEST_BUCKET_ID, TEST_FILE_NAME, new byte[0]);
@@ -344,7 +349,7 @@ class StorageClientUnitTest {
 
     @Test
     void updateFileWithWrongParamsReturnsErrorResponse() {
-        when(mockRequestMaker.make()).thenReturn(
+        when(mockRequestMaker.makeBytes()).thenReturn(
                 new ResponseWrapper<>(null, new ErrorResponse(
                         MOCK_ERROR_STATUS, MOCK_ERROR, MOCK_ERROR_MESSAGE),
                         null));
@@ -364,8 +369,8 @@ class StorageClientUnitTest {
 
     @Test
     void uploadFileReturnsProperResponse() {
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(IDENTITY_JSON_RESPONSE, null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(IDENTITY_JSON_RESPONSE), null, null));
 
         final ResponseWrapper<FileObjectIdentity> responseWrapper = storageClient
                 .uploadFile(TEST_BUCKET_ID, TEST_FILE_NAME, new byte[0]);
@@ -379,7 +384,7 @@ class StorageClientUnitTest {
 
     @Test
     void uploadFileWithWrongParamsReturnsErrorResponse() {
-        when(mockRequestMaker.make()).thenReturn(
+        when(mockRequestMaker.makeBytes()).thenReturn(
                 new ResponseWrapper<>(null, new ErrorResponse(
                         MOCK_ERROR_STATUS, MOCK_ERROR, MOCK_ERROR_MESSAGE),
                         null));
@@ -400,8 +405,8 @@ class StorageClientUnitTest {
     @Test
     void deleteFileReturnsProperResponse() {
         final String expectedMessage = "Successfully deleted";
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(MESSAGE_RESPONSE(expectedMessage), null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(MESSAGE_RESPONSE(expectedMessage)), null, null));
 
         final ResponseWrapper<String> responseWrapper =
                 storageClient.deleteFile(TEST_BUCKET_ID, TEST_FILE_NAME);
@@ -415,7 +420,7 @@ class StorageClientUnitTest {
 
     @Test
     void deleteFileWithWrongParamsReturnsErrorResponse() {
-        when(mockRequestMaker.make()).thenReturn(
+        when(mockRequestMaker.makeBytes()).thenReturn(
                 new ResponseWrapper<>(null, new ErrorResponse(
                         MOCK_ERROR_STATUS, MOCK_ERROR, MOCK_ERROR_MESSAGE),
                         null));
@@ -436,8 +441,8 @@ class StorageClientUnitTest {
     @Test
     void moveFileReturnsProperResponse() {
         final String expectedMessage = "Successfully moved";
-        when(mockRequestMaker.make()).thenReturn(
-                new ResponseWrapper<>(MESSAGE_RESPONSE(expectedMessage), null, null));
+        when(mockRequestMaker.makeBytes()).thenReturn(
+                new ResponseWrapper<>(utf8(MESSAGE_RESPONSE(expectedMessage)), null, null));
 
         final ResponseWrapper<String> responseWrapper = storageClient.moveFile(new FileMoveOptions(
                 TEST_BUCKET_ID, TEST_FILE_NAME, TEST_BUCKET_ID, MOVED_TEST_FILE_PATH));
@@ -451,7 +456,7 @@ class StorageClientUnitTest {
 
     @Test
     void moveFileWithWrongParamsReturnsErrorResponse() {
-        when(mockRequestMaker.make()).thenReturn(
+        when(mockRequestMaker.makeBytes()).thenReturn(
                 new ResponseWrapper<>(null, new ErrorResponse(
                         MOCK_ERROR_STATUS, MOCK_ERROR, MOCK_ERROR_MESSAGE),
                         null));
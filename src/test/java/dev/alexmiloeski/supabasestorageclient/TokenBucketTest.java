@@ -0,0 +1,60 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.RateLimit;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void burstIsAvailableRightAwayAndThenPermitsAreSpacedByTheInterval() {
+        final TokenBucket tokenBucket = new TokenBucket(new RateLimit(10, 3));
+
+        assertEquals(0, tokenBucket.reserve(Long.MAX_VALUE));
+        assertEquals(0, tokenBucket.reserve(Long.MAX_VALUE));
+        assertEquals(0, tokenBucket.reserve(Long.MAX_VALUE));
+        final long wait = tokenBucket.reserve(Long.MAX_VALUE);
+
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(50), "waited " + wait);
+        assertTrue(wait <= TimeUnit.MILLISECONDS.toNanos(100), "waited " + wait);
+    }
+
+    @Test
+    void permitThatIsTooFarAwayIsNotTaken() {
+        final TokenBucket tokenBucket = new TokenBucket(new RateLimit(1, 1));
+
+        assertEquals(0, tokenBucket.reserve(0));
+        assertEquals(-1, tokenBucket.reserve(0));
+        assertEquals(-1, tokenBucket.reserve(TimeUnit.MILLISECONDS.toNanos(500)));
+        // the refused reservations didn't push the next permit further away
+        assertTrue(tokenBucket.reserve(TimeUnit.SECONDS.toNanos(1)) >= 0);
+    }
+
+    @Test
+    void concurrentCallersNeverGetMoreThanTheBurstAtOnce() throws InterruptedException {
+        final TokenBucket tokenBucket = new TokenBucket(new RateLimit(1, 50));
+        final AtomicInteger granted = new AtomicInteger();
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 200; i++) {
+                executorService.execute(() -> {
+                    if (tokenBucket.reserve(0) == 0) {
+                        granted.incrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+        // a permit may have been added while the test was running
+        assertTrue(granted.get() >= 50 && granted.get() <= 51, "granted " + granted.get());
+    }
+}
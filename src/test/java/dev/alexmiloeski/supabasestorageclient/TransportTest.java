@@ -0,0 +1,131 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.Timeouts;
+import dev.alexmiloeski.supabasestorageclient.model.responses.ResponseWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static dev.alexmiloeski.supabasestorageclient.Arrange.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TransportTest {
+
+    HttpClient mockHttpClient;
+    Transport transport;
+    String apiUrl = "https://fakeProjectId.supabase.co";
+
+    @BeforeEach
+    void setUp() {
+        mockHttpClient = mock(HttpClient.class);
+        transport = new Transport(mockHttpClient);
+        mockResponse(mockHttpClient, "GET",
+                (uri) -> uri.equals(apiUrl + STORAGE_PATH + "/health"), HEALTHY_JSON);
+    }
+
+    @Test
+    void requestMakersShareTheSameHttpClient() throws Exception {
+        new RequestMaker(apiUrl, "fakeApiKey", transport).path("health").make();
+        new RequestMaker(apiUrl, "fakeApiKey", transport).path("health").make();
+
+        verify(mockHttpClient, times(2)).send(any(), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    void closedTransportRejectsRequestsWithoutSending() throws Exception {
+        transport.close();
+        transport.close();
+
+        final ResponseWrapper<String> responseWrapper =
+                new RequestMaker(apiUrl, "fakeApiKey", transport).path("health").make();
+
+        assertTrue(transport.isClosed());
+        assertNull(responseWrapper.body());
+        assertNull(responseWrapper.errorResponse());
+        assertNotNull(responseWrapper.exception());
+        verify(mockHttpClient, never()).send(any(), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    void blockingExecutorIsCreatedOnceAndShutDownOnClose() {
+        final ExecutorService blockingExecutor = transport.blockingExecutor();
+        assertSame(blockingExecutor, transport.blockingExecutor());
+
+        transport.close();
+
+        assertTrue(blockingExecutor.isShutdown());
+    }
+
+    @Test
+    void requestsHaveTheMetadataTimeoutCutShortByTheDeadline() throws Exception {
+        final ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+
+        new RequestMaker(apiUrl, "fakeApiKey", transport).path("health").make();
+        new RequestMaker(apiUrl, "fakeApiKey", transport).path("health")
+                .deadline(System.nanoTime() + TimeUnit.SECONDS.toNanos(1))
+                .make();
+
+        verify(mockHttpClient, times(2)).send(request.capture(), any(HttpResponse.BodyHandler.class));
+        assertEquals(Optional.of(Timeouts.defaults().metadata()), request.getAllValues().get(0).timeout());
+        assertTrue(request.getAllValues().get(1).timeout().orElseThrow().compareTo(Duration.ofSeconds(1)) <= 0);
+    }
+
+    @Test
+    void requestPastItsDeadlineIsNotSent() throws Exception {
+        final ResponseWrapper<String> responseWrapper = new RequestMaker(apiUrl, "fakeApiKey", transport)
+                .path("health")
+                .deadline(System.nanoTime() - 1)
+                .make();
+
+        assertEquals("Deadline exceeded", responseWrapper.exception());
+        assertEquals(0, responseWrapper.attempts());
+        verify(mockHttpClient, never()).send(any(), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    void cancellingAnAsyncRequestAbortsTheExchange() {
+        final CompletableFuture<HttpResponse<Object>> exchange = new CompletableFuture<>();
+        when(mockHttpClient.sendAsync(any(), any())).thenReturn(exchange);
+
+        new RequestMaker(apiUrl, "fakeApiKey", transport).path("health").makeAsync().cancel(true);
+
+        assertTrue(exchange.isCancelled());
+    }
+
+    @Test
+    void asyncRequestIsAbortedWhenItsDeadlinePasses() {
+        final CompletableFuture<HttpResponse<Object>> exchange = new CompletableFuture<>();
+        when(mockHttpClient.sendAsync(any(), any())).thenReturn(exchange);
+
+        final ResponseWrapper<String> responseWrapper = new RequestMaker(apiUrl, "fakeApiKey", transport)
+                .path("health")
+                .deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50))
+                .makeAsync()
+                .join();
+
+        assertEquals("Deadline exceeded", responseWrapper.exception());
+        assertEquals(1, responseWrapper.attempts());
+        assertTrue(exchange.isCancelled());
+    }
+
+    @Test
+    void closingStorageClientClosesItsTransport() {
+        final StorageClient storageClient = new StorageClient("fakeProjectId", "fakeApiKey");
+
+        storageClient.close();
+
+        assertTrue(storageClient.transport.isClosed());
+        assertTrue(storageClient.isHealthy().hasException());
+    }
+}
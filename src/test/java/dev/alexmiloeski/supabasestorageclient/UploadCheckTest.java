@@ -0,0 +1,55 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.Bucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadCheckTest {
+
+    @Test
+    void uploadsOverTheSizeLimitAreRejected() {
+        final Bucket bucket = bucket(100, null);
+
+        assertNull(UploadCheck.check(bucket, 100, "text/plain"));
+        assertEquals("413", UploadCheck.check(bucket, 101, "text/plain").statusCode());
+        assertNull(UploadCheck.check(bucket, -1, "text/plain"));
+    }
+
+    @Test
+    void missingOrZeroSizeLimitMeansNoLimit() {
+        assertNull(UploadCheck.check(bucket(null, null), Long.MAX_VALUE, null));
+        assertNull(UploadCheck.check(bucket(0, null), Long.MAX_VALUE, null));
+    }
+
+    @Test
+    void onlyAllowedMimeTypesPass() {
+        final Bucket bucket = bucket(null, List.of("image/png", "text/*"));
+
+        assertNull(UploadCheck.check(bucket, 1, "image/png"));
+        assertNull(UploadCheck.check(bucket, 1, "IMAGE/PNG; q=1"));
+        assertNull(UploadCheck.check(bucket, 1, "text/plain; charset=utf-8"));
+        assertNull(UploadCheck.check(bucket, 1, null));
+        assertEquals("415", UploadCheck.check(bucket, 1, "image/jpeg").statusCode());
+        assertEquals("415", UploadCheck.check(bucket, 1, "textual/plain").statusCode());
+    }
+
+    @Test
+    void emptyAllowedListAllowsEverything() {
+        assertNull(UploadCheck.check(bucket(null, List.of()), 1, "application/octet-stream"));
+    }
+
+    @Test
+    void sizeOfKnownBodies() {
+        assertEquals(3, UploadCheck.sizeOf(new byte[3]));
+        assertEquals(7, UploadCheck.sizeOf(new RequestMaker.StreamBody(() -> null, 7)));
+        assertEquals(-1, UploadCheck.sizeOf(new RequestMaker.StreamBody(() -> null, -1)));
+        assertEquals(-1, UploadCheck.sizeOf("text"));
+    }
+
+    private static Bucket bucket(Integer fileSizeLimit, List<String> allowedMimeTypes) {
+        return new Bucket("id", "name", null, false, fileSizeLimit, allowedMimeTypes, null, null);
+    }
+}
@@ -0,0 +1,64 @@
+package dev.alexmiloeski.supabasestorageclient;
+
+import dev.alexmiloeski.supabasestorageclient.model.options.StorageClientOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadsTest {
+
+    @Test
+    void optionsRejectCustomExecutorTogetherWithVirtualThreads() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> StorageClientOptions.builder()
+                    .executor(executor)
+                    .virtualThreads(true)
+                    .build());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void virtualThreadsAreUnsupportedBeforeJava21() {
+        final StorageClientOptions options = StorageClientOptions.builder().virtualThreads(true).build();
+
+        assertFalse(VirtualThreads.isSupported());
+        assertThrows(UnsupportedOperationException.class, VirtualThreads::newExecutor);
+        assertThrows(UnsupportedOperationException.class,
+                () -> new StorageClient("fakeProjectId", "fakeApiKey", options));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void executorRunsTasksOnVirtualThreads() throws Exception {
+        assertTrue(VirtualThreads.isSupported());
+        final ExecutorService executor = VirtualThreads.newExecutor();
+        try {
+            final boolean isVirtual = executor.submit(() ->
+                    (boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get();
+            assertTrue(isVirtual);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void storageClientOwnsItsVirtualThreadExecutor() {
+        final StorageClient storageClient = new StorageClient("fakeProjectId", "fakeApiKey",
+                StorageClientOptions.builder().virtualThreads(true).build());
+        final ExecutorService executor = storageClient.transport.executor();
+
+        assertNotNull(executor);
+        storageClient.close();
+        assertTrue(executor.isShutdown());
+    }
+}
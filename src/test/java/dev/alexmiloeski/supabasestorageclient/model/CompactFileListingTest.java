@@ -0,0 +1,55 @@
+package dev.alexmiloeski.supabasestorageclient.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactFileListingTest {
+    private static final String DATE = "2024-11-12T19:14:12.167Z";
+
+    @Test
+    void entriesReadBackAsTheyWereAdded() {
+        final List<FileObject> fileObjects = new ArrayList<>();
+        fileObjects.add(new FileObject(null, "folder", null, null, null, null));
+        for (int i = 0; i < 100; i++) {
+            fileObjects.add(new FileObject(UUID.randomUUID().toString(), "photos/2024/\u013eeto-%03d.jpg".formatted(i),
+                    DATE, "2024-11-12T19:14:13.000Z", DATE,
+                    new FileObject.Metadata("\"88c163864a2335ddbc8d6132a4db382c" + (i % 2 == 0 ? "\"" : "-" + i + "\""),
+                            1000L * i, i % 3 == 0 ? "image/jpeg" : "image/png", "max-age=3600",
+                            "2024-11-12T19:14:12.000Z", 1000L * i, 200)));
+        }
+
+        final CompactFileListing listing = new CompactFileListing(fileObjects);
+        listing.trimToSize();
+
+        assertEquals(fileObjects.size(), listing.size());
+        assertEquals(fileObjects, listing);
+        assertEquals("photos/2024/\u013eeto-042.jpg", listing.nameAt(43));
+    }
+
+    @Test
+    void valuesThatDontFitTheirColumnAreKeptAsTheyAre() {
+        final List<FileObject> fileObjects = List.of(
+                new FileObject("not-a-uuid", null, "2024-11-12T19:14:12Z", "yesterday", "", new FileObject.Metadata(
+                        "W/\"abc\"", 10, null, null, null, 10, 304)),
+                new FileObject("CF522B79-7CDB-4C08-B454-BADD27F0EA86", "b", DATE, DATE, DATE, new FileObject.Metadata(
+                        "\"88C163864A2335DDBC8D6132A4DB382C\"", 0, "text/plain", null, DATE, 0, 200)),
+                new FileObject(null, "", null, null, null, new FileObject.Metadata(
+                        "\"88c163864a2335ddbc8d6132a4db382c-0\"", 0, "", "", DATE, 0, 200)));
+
+        assertEquals(fileObjects, new CompactFileListing(fileObjects));
+    }
+
+    @Test
+    void indexOutsideTheListingThrows() {
+        final CompactFileListing listing = new CompactFileListing();
+        listing.add(new FileObject(null, "a", null, null, null, null));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> listing.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> listing.nameAt(-1));
+    }
+}
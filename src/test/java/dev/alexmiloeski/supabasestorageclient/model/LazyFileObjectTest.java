@@ -0,0 +1,66 @@
+package dev.alexmiloeski.supabasestorageclient.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyFileObjectTest {
+
+    @Test
+    void readsFieldsPastValuesOfAnyShape() {
+        final LazyFileObject fileObject = lazy("""
+                { "unknown" : {"a": ["}", "\\"", {"b": [1, 2.5e3, null]}], "c": "{"},
+                  "flag": true, "name" : "photos/\\u013eeto \\"1\\".jpg",
+                  "id":"cf522b79-7cdb-4c08-b454-badd27f0ea86",
+                  "metadata": {"size": "12", "contentLength": 1.2e1, "httpStatusCode": -200,
+                               "eTag": "\\"5f2b\\"", "mimetype": "text/plain"},
+                  "created_at": "2024-11-12T22:36:52.504Z" }""");
+
+        assertEquals("photos/\u013eeto \"1\".jpg", fileObject.name());
+        assertEquals("cf522b79-7cdb-4c08-b454-badd27f0ea86", fileObject.id());
+        assertEquals(Instant.parse("2024-11-12T22:36:52.504Z"), fileObject.createdAt());
+        assertNull(fileObject.updatedAt());
+        assertTrue(fileObject.hasMetadata());
+        assertEquals(12, fileObject.size());
+        assertEquals(12, fileObject.contentLength());
+        assertEquals(-200, fileObject.httpStatusCode());
+        assertEquals("\"5f2b\"", fileObject.eTag());
+        assertEquals("text/plain", fileObject.mimetype());
+        assertNull(fileObject.cacheControl());
+        assertNull(fileObject.lastModified());
+    }
+
+    @Test
+    void folderHasNoMetadata() {
+        final LazyFileObject folder = lazy("""
+                {"name":"folder","id":null,"metadata":null}""");
+
+        assertEquals("folder", folder.name());
+        assertNull(folder.id());
+        assertFalse(folder.hasMetadata());
+        assertEquals(0, folder.size());
+        assertNull(folder.eTag());
+        assertEquals(new FileObject(null, "folder", null, null, null, null), folder.toFileObject());
+    }
+
+    @Test
+    void readsOnlyItsOwnSliceOfTheResponse() {
+        final String json = """
+                [{"name":"a","metadata":{"size":1}},{"name":"b","metadata":{"size":2}}]""";
+        final int second = json.indexOf("{\"name\":\"b");
+        final LazyFileObject fileObject = new LazyFileObject(
+                json.getBytes(StandardCharsets.UTF_8), second, json.length() - 1 - second);
+
+        assertEquals("b", fileObject.name());
+        assertEquals(2, fileObject.size());
+        assertEquals("{\"name\":\"b\",\"metadata\":{\"size\":2}}", fileObject.toString());
+    }
+
+    private static LazyFileObject lazy(String json) {
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return new LazyFileObject(bytes, 0, bytes.length);
+    }
+}